@@ -0,0 +1,93 @@
+package io.micrc.core.application.businesses;
+
+import io.micrc.core.application.businesses.benchmark.BenchmarkOrder;
+import io.micrc.core.application.businesses.benchmark.BenchmarkOrderId;
+import io.micrc.core.application.businesses.benchmark.BusinessesRouteBenchmarkApplication;
+import io.micrc.core.application.businesses.benchmark.OrderCreateService.OrderCreateCommand;
+import io.micrc.core.message.MessageRouteConfiguration.EventsInfo;
+import io.micrc.core.persistence.snowflake.SnowFlakeIdentity;
+import org.apache.camel.CamelContext;
+import org.apache.camel.ProducerTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 业务服务路由基准测试
+ * 经businesses:端点执行一个完整的业务服务路由：命令处理、时间解析、动态集成、本地DMN前置校验/逻辑/后置校验、
+ * 实体存储与事件存储，分别以字符串模式与命令树模式运行。
+ * 存储为MySQL兼容模式的H2内存库，不含网络往返，不启用缓存与消息推送，每次调用新增一个订单与一条事件消息
+ *
+ * @author weiguan
+ * @date 2024-07-12 15:40
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BusinessesRouteBenchmark {
+
+    private static final String ENDPOINT = "businesses:OrderCreateService";
+
+    private static final Map<String, Object> ROUTE_HEADERS = Map.of("WrappedRouter", true);
+
+    @Param({"false", "true"})
+    public String commandTree;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private ProducerTemplate producerTemplate;
+
+    @Setup
+    public void setup() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        // 不分配机器码，直接指定
+        SnowFlakeIdentity.machineNumber = 1;
+        if (null == EventsInfo.get(BusinessesRouteBenchmarkApplication.EVENT_NAME)) {
+            EventsInfo.put(BusinessesRouteBenchmarkApplication.EVENT_NAME, EventsInfo.Event.builder()
+                    .topicName("benchmark")
+                    .eventName(BusinessesRouteBenchmarkApplication.EVENT_NAME)
+                    .eventMappings(List.of())
+                    .build());
+        }
+        applicationContext = new SpringApplicationBuilder(BusinessesRouteBenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(BusinessesRouteBenchmarkApplication.args(commandTree));
+        producerTemplate = applicationContext.getBean(CamelContext.class).createProducerTemplate();
+        // 路由执行失败时由错误处理路由写入命令的error，不能以错误路径的耗时作为结果
+        OrderCreateCommand command = command();
+        producerTemplate.requestBodyAndHeaders(ENDPOINT, command, ROUTE_HEADERS);
+        if (null != command.getError() || null == command.getTarget() || null == command.getTarget().getIdentity().getId()) {
+            throw new IllegalStateException("businesses route benchmark warmup fail, error: " + command.getError());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        producerTemplate.close();
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public OrderCreateCommand execute() {
+        OrderCreateCommand command = command();
+        producerTemplate.requestBodyAndHeaders(ENDPOINT, command, ROUTE_HEADERS);
+        return command;
+    }
+
+    private static OrderCreateCommand command() {
+        BenchmarkOrder source = new BenchmarkOrder();
+        source.setIdentity(new BenchmarkOrderId());
+        source.setName("order");
+        source.setAmount(100);
+        OrderCreateCommand command = new OrderCreateCommand();
+        command.setSource(source);
+        return command;
+    }
+}
@@ -0,0 +1,96 @@
+package io.micrc.core.application.businesses;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration.ApplicationBusinessesServiceDefinition;
+import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration.LogicIntegration;
+import io.micrc.lib.BenchmarkPayloads;
+import io.micrc.lib.JsonUtil;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 业务服务逻辑参数解析基准测试
+ * 只测量逻辑入参解析(含时间替换)、逻辑结果回填与回填后命令序列化，分别以字符串模式与命令树模式运行。
+ * 不经过业务服务路由模版，不包含实体仓库、逻辑执行与事件存储，不代表业务服务整体耗时
+ *
+ * @author weiguan
+ * @date 2024-07-12 15:20
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogicParamsResolveBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"false", "true"})
+    public String commandTree;
+
+    private CamelContext camelContext;
+
+    private BusinessesServicePlan plan;
+
+    private LogicInParamsResolve resolve;
+
+    private Map<String, Object> logicResult;
+
+    private String command;
+
+    @Setup
+    public void setup() {
+        command = BenchmarkPayloads.command(size);
+        Map<String, String> paramMappingMap = new HashMap<>();
+        paramMappingMap.put("command", "{\"source\": .source}");
+        Map<String, String> resultMappingMap = new HashMap<>();
+        resultMappingMap.put("/event", ".event");
+        resultMappingMap.put("/error", ".error");
+        resultMappingMap.put("/target/name", ".name");
+        resultMappingMap.put("/target/state", ".state");
+        String logicIntegrationJson = JsonUtil.writeValueAsString(LogicIntegration.builder()
+                .paramMappingMap(paramMappingMap).resultMappingMap(resultMappingMap).build());
+        paramMappingMap.values().forEach(JsonUtil::precompileCheck);
+        resultMappingMap.values().forEach(JsonUtil::precompileTransform);
+        plan = BusinessesServicePlan.of(ApplicationBusinessesServiceDefinition.builder()
+                .serviceName("OrderCreateService")
+                .logicIntegrationJson(Base64.getEncoder().encodeToString(logicIntegrationJson.getBytes()))
+                .commandParamIntegrationsJson("[]")
+                .timePathsJson(JsonUtil.writeValueAsString(
+                        BenchmarkPayloads.TIME_PATHS.stream().map(path -> String.join("/", path)).collect(Collectors.toList())))
+                .fieldMap("{}")
+                .build());
+        resolve = new LogicInParamsResolve();
+        logicResult = new HashMap<>();
+        logicResult.put("name", "order-executed");
+        logicResult.put("state", Map.of("status", "EXECUTED"));
+        logicResult.put("event", Map.of("eventName", "OrderCreatedEvent"));
+        camelContext = new DefaultCamelContext();
+    }
+
+    @Benchmark
+    public String resolve() {
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.setProperty("commandTree", commandTree);
+        exchange.setProperty("logicType", "DMN");
+        exchange.setProperty("logicName", "OrderCreate");
+        exchange.setProperty(BusinessesServicePlan.SERVICE_PLAN, plan);
+        if (CommandNode.isTree(exchange.getProperties())) {
+            CommandNode.write(exchange.getProperties(), (ObjectNode) JsonUtil.readTree(command));
+        } else {
+            exchange.setProperty(CommandNode.COMMAND_JSON, command);
+        }
+        resolve.toLogicParams(plan.getLogicIntegration(), exchange);
+        resolve.toTargetParams(new HashMap<>(logicResult), exchange);
+        return CommandNode.json(exchange.getProperties());
+    }
+}
@@ -0,0 +1,28 @@
+package io.micrc.core.application.businesses.benchmark;
+
+import lombok.Data;
+
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * 基准测试订单聚合
+ *
+ * @author weiguan
+ * @date 2024-07-12 15:40
+ * @since 0.0.1
+ */
+@Data
+@Entity
+@Table(name = "benchmark_order")
+public class BenchmarkOrder implements Serializable {
+
+    @EmbeddedId
+    private BenchmarkOrderId identity;
+
+    private String name;
+
+    private Integer amount;
+}
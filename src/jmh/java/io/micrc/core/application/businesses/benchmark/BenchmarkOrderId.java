@@ -0,0 +1,26 @@
+package io.micrc.core.application.businesses.benchmark;
+
+import io.micrc.core.persistence.IdentityAware;
+import lombok.Data;
+
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+
+/**
+ * 基准测试订单标识
+ *
+ * @author weiguan
+ * @date 2024-07-12 15:40
+ * @since 0.0.1
+ */
+@Data
+@Embeddable
+public class BenchmarkOrderId implements Serializable, IdentityAware {
+
+    private Long id;
+
+    @Override
+    public void setIdentity(long id) {
+        this.id = id;
+    }
+}
@@ -0,0 +1,15 @@
+package io.micrc.core.application.businesses.benchmark;
+
+import io.micrc.core.persistence.MicrcJpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 基准测试订单资源库，基准上下文不启用缓存，缓存注解不生效
+ *
+ * @author weiguan
+ * @date 2024-07-12 15:40
+ * @since 0.0.1
+ */
+@Repository
+public interface BenchmarkOrderRepository extends MicrcJpaRepository<BenchmarkOrder, BenchmarkOrderId> {
+}
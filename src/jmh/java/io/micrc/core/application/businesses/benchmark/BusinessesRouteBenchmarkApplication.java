@@ -0,0 +1,115 @@
+package io.micrc.core.application.businesses.benchmark;
+
+import io.micrc.core._camel.springboot.CustomCamelComponentAutoConfiguration;
+import io.micrc.core.application.businesses.EnableBusinessesService;
+import io.micrc.core.message.MessageRouteConfiguration;
+import io.micrc.core.message.store.MessagePublishPolicy;
+import org.apache.camel.component.direct.DirectComponent;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 业务服务路由基准上下文
+ * 只装配业务服务路由、逻辑执行与事件存储路由，实体与事件存储使用MySQL兼容模式的H2内存库，表结构由JPA生成。
+ * 不导入推送与清理调度、Kafka、缓存与机器码分配，事件只存储不发送；
+ * 推送策略与组件路由依赖的内存库模版不会被调用，不建立连接
+ *
+ * @author weiguan
+ * @date 2024-07-12 15:40
+ * @since 0.0.1
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {
+        RedisAutoConfiguration.class,
+        RedisRepositoriesAutoConfiguration.class,
+        KafkaAutoConfiguration.class,
+        LiquibaseAutoConfiguration.class
+})
+@EntityScan(basePackages = {
+        "io.micrc.core.application.businesses.benchmark",
+        "io.micrc.core.message.store",
+        "io.micrc.core.message.error"
+})
+@EnableJpaRepositories(basePackages = {
+        "io.micrc.core.application.businesses.benchmark",
+        "io.micrc.core.message.store",
+        "io.micrc.core.message.error"
+})
+@EnableBusinessesService(servicePackages = "io.micrc.core.application.businesses.benchmark")
+@Import({
+        CustomCamelComponentAutoConfiguration.class,
+        MessageRouteConfiguration.class,
+        MessagePublishPolicy.class
+})
+public class BusinessesRouteBenchmarkApplication {
+
+    /**
+     * 逻辑产生的事件名称，基准启动前登记，事件存储路由只存储已登记的事件
+     */
+    public static final String EVENT_NAME = "BenchmarkOrderCreated";
+
+    /**
+     * 启动参数，命令行参数优先于micrc环境处理器写入的数据源、JPA与profile配置
+     *
+     * @param commandTree   command tree mode
+     * @return              args
+     */
+    public static String[] args(String commandTree) {
+        return new String[]{
+                "--spring.profiles.active=benchmark",
+                "--spring.datasource.url=jdbc:h2:mem:micrc;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.cloud.kubernetes.enabled=false",
+                "--shiro.enabled=false",
+                "--shiro.web.enabled=false",
+                "--camel.rest.component=servlet",
+                "--micrc.businesses.logic-executor=local",
+                "--micrc.businesses.command-tree=" + commandTree,
+                // 逻辑参数与结果的info日志不计入路由耗时
+                "--logging.level.root=WARN"
+        };
+    }
+
+    @Bean("memoryDbTemplate")
+    public RedisTemplate<Object, Object> memoryDbTemplate() {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory();
+        factory.afterPropertiesSet();
+        RedisTemplate<Object, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        return template;
+    }
+
+    @Bean("req")
+    public DirectComponent req() {
+        return new DirectComponent();
+    }
+
+    @Bean("eventstore")
+    public DirectComponent eventStore() {
+        return new DirectComponent();
+    }
+
+    @Bean("publish")
+    public DirectComponent publish() {
+        return new DirectComponent();
+    }
+
+    @Bean("clean")
+    public DirectComponent clean() {
+        return new DirectComponent();
+    }
+}
@@ -0,0 +1,41 @@
+package io.micrc.core.application.businesses.benchmark;
+
+import io.micrc.core.annotations.application.businesses.BusinessesService;
+import io.micrc.core.annotations.application.businesses.CommandLogic;
+import io.micrc.core.annotations.application.businesses.LogicMapping;
+import io.micrc.core.annotations.application.businesses.LogicType;
+import io.micrc.core.application.businesses.ApplicationBusinessesService;
+import io.micrc.core.application.businesses.MicrcCommand;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 基准测试订单创建业务服务，以本地DMN执行前置校验、逻辑与后置校验，存储订单并产生订单创建事件
+ *
+ * @author weiguan
+ * @date 2024-07-12 15:40
+ * @since 0.0.1
+ */
+@BusinessesService
+public interface OrderCreateService extends ApplicationBusinessesService<OrderCreateService.OrderCreateCommand> {
+
+    @Override
+    void execute(OrderCreateCommand command);
+
+    @Data
+    @EqualsAndHashCode(callSuper = true)
+    @CommandLogic(
+            logicType = LogicType.DMN,
+            logicPath = "benchmark/order-create.dmn",
+            repositoryFullClassName = "io.micrc.core.application.businesses.benchmark.BenchmarkOrderRepository",
+            toLogicMappings = {
+                    @LogicMapping(name = "amount", paramMappingFile = "benchmark/order-create-amount.jslt")
+            }
+    )
+    class OrderCreateCommand extends MicrcCommand {
+
+        private BenchmarkOrder source;
+
+        private BenchmarkOrder target;
+    }
+}
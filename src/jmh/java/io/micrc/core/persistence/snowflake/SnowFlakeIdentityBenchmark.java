@@ -0,0 +1,73 @@
+package io.micrc.core.persistence.snowflake;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花ID生成基准测试，对比CAS实现与原同步实现在多线程下的吞吐
+ *
+ * @author weiguan
+ * @date 2024-07-12 15:02
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class SnowFlakeIdentityBenchmark {
+
+    private SnowFlakeIdentity identity;
+
+    private SynchronizedSnowFlakeIdentity synchronizedIdentity;
+
+    @Setup
+    public void setup() {
+        SnowFlakeIdentity.machineNumber = 1;
+        identity = SnowFlakeIdentity.getInstance();
+        synchronizedIdentity = new SynchronizedSnowFlakeIdentity();
+    }
+
+    @Benchmark
+    public long nextId() {
+        return identity.nextId();
+    }
+
+    @Benchmark
+    public long[] nextIds() {
+        return identity.nextIds(100);
+    }
+
+    @Benchmark
+    public long synchronizedNextId() {
+        return synchronizedIdentity.nextId();
+    }
+
+    /**
+     * 原同步实现，仅作对比基线
+     */
+    static class SynchronizedSnowFlakeIdentity {
+
+        private static final long TIMESTAMP_DATUM = Instant.parse("2022-01-01T00:00:00.000Z").toEpochMilli();
+
+        private static final long MAX_SEQUENCE = ~(-1L << 9);
+
+        private long pastTimeStamp = System.currentTimeMillis();
+
+        private long currentSequence = 0;
+
+        synchronized long nextId() {
+            if (currentSequence > MAX_SEQUENCE) {
+                pastTimeStamp++;
+                currentSequence = 0;
+            }
+            while (pastTimeStamp >= System.currentTimeMillis()) {
+                // wait time go
+            }
+            return (pastTimeStamp - TIMESTAMP_DATUM) << 15 << 9
+                    | currentSequence++ << 15
+                    | SnowFlakeIdentity.machineNumber;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.micrc.lib;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+
+/**
+ * 基准测试负载，按明细数量构造小、中、大三种聚合命令
+ *
+ * @author weiguan
+ * @date 2024-07-12 14:05
+ * @since 0.0.1
+ */
+public final class BenchmarkPayloads {
+
+    /**
+     * 命令中的时间路径，与业务服务扫描得到的时间路径格式一致
+     */
+    public static final List<String[]> TIME_PATHS = List.of(
+            "/source/createTime".split("/"),
+            "/source/items/#/createTime".split("/"));
+
+    private static final long CREATE_TIME = 1720764300000L;
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * 负载规模对应的明细数量
+     *
+     * @param size  small, medium or large
+     * @return      item count
+     */
+    public static int items(String size) {
+        switch (size) {
+            case "small":
+                return 5;
+            case "medium":
+                return 100;
+            case "large":
+                return 2000;
+            default:
+                throw new IllegalArgumentException("unknown payload size: " + size);
+        }
+    }
+
+    /**
+     * 业务命令json，含source聚合、空target与事件
+     *
+     * @param size  small, medium or large
+     * @return      command json
+     */
+    public static String command(String size) {
+        ObjectNode command = JsonNodeFactory.instance.objectNode();
+        command.set("source", aggregate(items(size)));
+        command.putObject("target");
+        command.putObject("event").put("eventName", "OrderCreatedEvent");
+        return JsonUtil.writeValueAsStringRetainNull(command);
+    }
+
+    private static ObjectNode aggregate(int count) {
+        ObjectNode aggregate = JsonNodeFactory.instance.objectNode();
+        aggregate.putObject("id").put("id", 1020304050607080L);
+        aggregate.put("version", 3);
+        aggregate.put("name", "order-benchmark");
+        aggregate.put("createTime", CREATE_TIME);
+        aggregate.putObject("state").put("status", "CREATED").put("angle", "");
+        ArrayNode items = aggregate.putArray("items");
+        for (int i = 0; i < count; i++) {
+            ObjectNode item = items.addObject();
+            item.put("sku", "SKU-" + i);
+            item.put("quantity", i % 7 + 1);
+            item.put("price", 19.9 + i);
+            item.put("createTime", CREATE_TIME + i);
+            item.putObject("attributes").put("color", "red").put("size", "M");
+        }
+        return aggregate;
+    }
+}
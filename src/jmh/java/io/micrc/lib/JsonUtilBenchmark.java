@@ -0,0 +1,76 @@
+package io.micrc.lib;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonUtil基准测试，覆盖字符串与树两种形式的patch、add、readPath以及JSLT转换
+ *
+ * @author weiguan
+ * @date 2024-07-12 14:20
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonUtilBenchmark {
+
+    private static final String TRANSFORM = "{\"name\": .source.name, \"skus\": [for (.source.items) .sku]}";
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private String command;
+
+    private JsonNode commandNode;
+
+    @Setup
+    public void setup() {
+        command = BenchmarkPayloads.command(size);
+        commandNode = JsonUtil.readTree(command);
+        JsonUtil.precompileTransform(TRANSFORM);
+    }
+
+    @Benchmark
+    public String patchString() {
+        return JsonUtil.patch(command, "/source/name", "\"order-patched\"");
+    }
+
+    @Benchmark
+    public JsonNode patchTree() {
+        return JsonUtil.patch(commandNode, "/source/name", TextNode.valueOf("order-patched"));
+    }
+
+    @Benchmark
+    public String addString() {
+        return JsonUtil.add(command, "/target/name", "\"order-added\"");
+    }
+
+    @Benchmark
+    public JsonNode addTree() {
+        return JsonUtil.add(commandNode, "/target/name", TextNode.valueOf("order-added"));
+    }
+
+    @Benchmark
+    public Object readPathString() {
+        return JsonUtil.readPath(command, "/source/items/0/sku");
+    }
+
+    @Benchmark
+    public Object readPathTree() {
+        return JsonUtil.readPath(commandNode, "/source/items/0/sku");
+    }
+
+    @Benchmark
+    public String transform() {
+        return JsonUtil.transform(TRANSFORM, command);
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        return JsonUtil.writeValueAsStringRetainNull(JsonUtil.readTree(command));
+    }
+}
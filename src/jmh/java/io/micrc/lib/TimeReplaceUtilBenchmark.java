@@ -0,0 +1,44 @@
+package io.micrc.lib;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TimeReplaceUtil基准测试，DMN调用前(时间戳转字符串)与调用后(字符串转时间戳)的整体替换
+ *
+ * @author weiguan
+ * @date 2024-07-12 14:32
+ * @since 0.0.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TimeReplaceUtilBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private TimeReplaceUtil.TimePaths timePaths;
+
+    private String command;
+
+    private String formatted;
+
+    @Setup
+    public void setup() {
+        timePaths = TimeReplaceUtil.compile(BenchmarkPayloads.TIME_PATHS);
+        command = BenchmarkPayloads.command(size);
+        formatted = TimeReplaceUtil.matchTimePathAndReplaceTime(timePaths, "", command, String.class);
+    }
+
+    @Benchmark
+    public String toTimeString() {
+        return TimeReplaceUtil.matchTimePathAndReplaceTime(timePaths, "", command, String.class);
+    }
+
+    @Benchmark
+    public String toTimestamp() {
+        return TimeReplaceUtil.matchTimePathAndReplaceTime(timePaths, "", formatted, Long.class);
+    }
+}
@@ -1,11 +1,13 @@
 package io.micrc.core._camel;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.fge.jsonpatch.JsonPatch;
 import freemarker.template.Template;
-import groovy.lang.Binding;
-import groovy.lang.GroovyShell;
 import io.micrc.core._camel.jit.JITDMNResult;
 import io.micrc.core._camel.jit.JITDMNService;
+import io.micrc.core._camel.jit.JITGroovyService;
+import io.micrc.core.application.businesses.CommandNode;
 import io.micrc.core.authorize.MyRealm;
 import io.micrc.core.rpc.ErrorInfo;
 import io.micrc.core.rpc.Result;
@@ -73,6 +75,9 @@ public class CamelComponentTempConfiguration {
     @Autowired
     private JITDMNService jitdmnService;
 
+    @Autowired
+    private JITGroovyService jitGroovyService;
+
     @Autowired
     Environment environment;
 
@@ -240,9 +245,9 @@ public class CamelComponentTempConfiguration {
                             if (!StringUtils.hasText(script)) {
                                 throw new RuntimeException("the script not have value, please check script....");
                             }
-                            Binding binding = new Binding();
-                            binding.setProperty("params", exchange.getIn().getBody());
-                            Object retVal = new GroovyShell(binding).evaluate(script);
+                            Map<String, Object> variables = new HashMap<>();
+                            variables.put("params", exchange.getIn().getBody());
+                            Object retVal = jitGroovyService.evaluate(script, variables);
                             exchange.getIn().setBody(JsonUtil.writeValueAsString(retVal));
                             exchange.getIn().removeHeader("groovy");
                         })
@@ -277,11 +282,9 @@ public class CamelComponentTempConfiguration {
                 from("json-patch://patch")
                         .routeId("json-patch-patch")
                         .process(exchange -> {
-                            String patchStr = "[{ \"op\": \"replace\", \"path\": \"{{path}}\", \"value\": {{value}} }]";
-                            String pathReplaced = patchStr.replace("{{path}}", String.valueOf(exchange.getIn().getHeader("path")));
-                            String valueReplaced = pathReplaced.replace("{{value}}", String.valueOf(exchange.getIn().getHeader("value")));
-                            JsonPatch patch = JsonPatch.fromJson(JsonUtil.readTree(valueReplaced));
-                            exchange.getIn().setBody(JsonUtil.writeValueAsStringRetainNull(patch.apply(JsonUtil.readTree(exchange.getIn().getBody()))));
+                            JsonNode value = JsonUtil.readTree(String.valueOf(exchange.getIn().getHeader("value")));
+                            exchange.getIn().setBody(JsonUtil.writeValueAsStringRetainNull(JsonUtil.patch(
+                                    JsonUtil.readTree(exchange.getIn().getBody()), String.valueOf(exchange.getIn().getHeader("path")), value)));
                             exchange.getIn().removeHeader("path");
                             exchange.getIn().removeHeader("value");
                         })
@@ -289,11 +292,9 @@ public class CamelComponentTempConfiguration {
                 from("json-patch://add")
                         .routeId("json-patch-add")
                         .process(exchange -> {
-                            String addStr = "[{ \"op\": \"add\", \"path\": \"{{path}}\", \"value\": {{value}} }]";
-                            String pathReplaced = addStr.replace("{{path}}", String.valueOf(exchange.getIn().getHeader("path")));
-                            String valueReplaced = pathReplaced.replace("{{value}}", String.valueOf(exchange.getIn().getHeader("value")));
-                            JsonPatch patch = JsonPatch.fromJson(JsonUtil.readTree(valueReplaced));
-                            exchange.getIn().setBody(JsonUtil.writeValueAsStringRetainNull(patch.apply(JsonUtil.readTree(exchange.getIn().getBody()))));
+                            JsonNode value = JsonUtil.readTree(String.valueOf(exchange.getIn().getHeader("value")));
+                            exchange.getIn().setBody(JsonUtil.writeValueAsStringRetainNull(JsonUtil.add(
+                                    JsonUtil.readTree(exchange.getIn().getBody()), String.valueOf(exchange.getIn().getHeader("path")), value)));
                             exchange.getIn().removeHeader("path");
                             exchange.getIn().removeHeader("value");
                         })
@@ -460,7 +461,7 @@ public class CamelComponentTempConfiguration {
                         .setBody(exceptionMessage())
                         .process(exchange -> {
                             ErrorInfo errorInfo = new ErrorInfo();
-                            errorInfo.setErrorCode("999999999");
+                            errorInfo.setErrorCode(ErrorInfo.SYSTEM_ERROR_CODE);
                             errorInfo.setErrorMessage(getErrorMessage(exchange));
                             exchange.getIn().setBody(new Result<>().result(errorInfo, null));
                         })
@@ -482,7 +483,7 @@ public class CamelComponentTempConfiguration {
                         .routeId("error-handle-business")
                         .process(exchange -> {
                             ErrorInfo errorInfo = new ErrorInfo();
-                            errorInfo.setErrorCode("888888888");
+                            errorInfo.setErrorCode(ErrorInfo.BUSINESS_ERROR_CODE);
                             errorInfo.setErrorMessage(getErrorMessage(exchange));
                             patchErrorToCommand(exchange, errorInfo);
                         })
@@ -490,11 +491,12 @@ public class CamelComponentTempConfiguration {
             }
 
             private void patchErrorToCommand(Exchange exchange, ErrorInfo errorInfo) {
-                String commandJson = (String) exchange.getProperty("commandJson");
-                commandJson = JsonUtil.patch(commandJson, "/error", JsonUtil.writeValueAsString(errorInfo));
-                exchange.setProperty("commandJson", commandJson);
+                Map<String, Object> properties = exchange.getProperties();
+                ObjectNode commandNode = CommandNode.read(properties);
+                JsonUtil.patch(commandNode, "/error", JsonUtil.readTree(errorInfo));
+                CommandNode.write(properties, commandNode);
                 Object command = exchange.getProperty("command");
-                BeanUtils.copyProperties(JsonUtil.writeValueAsObject(commandJson, command.getClass()), command);
+                BeanUtils.copyProperties(CommandNode.toObject(properties, command.getClass()), command);
             }
 
             private String getErrorMessage(Exchange exchange) {
@@ -0,0 +1,193 @@
+package io.micrc.core._camel;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.CamelEvent;
+import org.apache.camel.spi.CamelEvent.ExchangeSentEvent;
+import org.apache.camel.support.EventNotifierSupport;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务路由阶段耗时统计
+ * 监听交换发送完成事件，业务、展示、衍生服务路由中各阶段端点(处理请求、解析时间、集成、逻辑、存储等)的耗时
+ * 记录为micrc.route.stage计时器，按服务名、阶段、集成名与逻辑类型打标签，非阶段端点直接忽略
+ *
+ * @author weiguan
+ * @date 2024-07-16 10:05
+ * @since 0.0.1
+ */
+public class RouteStageMetrics extends EventNotifierSupport {
+
+    private static final String NONE = "none";
+
+    private static final String INTEGRATION = "integration";
+
+    private static final String LOGIC = "logic";
+
+    private static final String LOGIC_BEFORE = "logic-before";
+
+    private static final String LOGIC_AFTER = "logic-after";
+
+    /**
+     * 阶段端点(去掉协议)与所属路由类型、阶段名
+     */
+    private static final Map<String, String[]> STAGES = new HashMap<>();
+
+    static {
+        // 业务服务
+        stage("handle-request", "businesses", "handle-request");
+        stage("parse-time", "businesses", "parse-time");
+        stage("dynamic-integration", "businesses", "dynamic-integration");
+        stage("integration-params", "businesses", "integration");
+        stage("executor-data", "businesses", "executor-data");
+        stage("copy-source", "businesses", "copy-source");
+        stage("logic-execute", "businesses", "logic-execute");
+        stage("logic-request", "businesses", "logic");
+        stage("save-entity", "businesses", "save-entity");
+        stage("save-message", "businesses", "save-message");
+        stage("handle-result", "businesses", "handle-result");
+        // 展示服务
+        stage("handle-request-presentation", "presentations", "handle-request");
+        stage("dynamic-integration-presentation", "presentations", "dynamic-integration");
+        stage("presentations-integration", "presentations", "integration");
+        stage("handle-result-presentation", "presentations", "handle-result");
+        // 衍生服务
+        stage("handle-request-derivation", "derivations", "handle-request");
+        stage("parse-time-derivation", "derivations", "parse-time");
+        stage("dynamic-integration-derivation", "derivations", "dynamic-integration");
+        stage("derivations-integration", "derivations", "integration");
+        stage("handle-result-derivation", "derivations", "handle-result");
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 阶段端点与阶段计时器，计时器按服务名、逻辑类型、集成名或逻辑阶段逐级查找，不拼接键
+     */
+    private final Map<String, Stage> stages = new HashMap<>();
+
+    public RouteStageMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        STAGES.forEach((endpoint, stage) -> stages.put(endpoint, new Stage(stage[0], stage[1])));
+        setIgnoreCamelContextEvents(true);
+        setIgnoreRouteEvents(true);
+        setIgnoreServiceEvents(true);
+        setIgnoreStepEvents(true);
+        setIgnoreExchangeCreatedEvent(true);
+        setIgnoreExchangeCompletedEvent(true);
+        setIgnoreExchangeFailedEvents(true);
+        setIgnoreExchangeRedeliveryEvents(true);
+        setIgnoreExchangeSendingEvents(true);
+    }
+
+    @Override
+    public boolean isEnabled(CamelEvent event) {
+        return event instanceof ExchangeSentEvent;
+    }
+
+    @Override
+    public void notify(CamelEvent event) {
+        ExchangeSentEvent sentEvent = (ExchangeSentEvent) event;
+        Stage stage = stages.get(path(sentEvent.getEndpoint().getEndpointUri()));
+        if (null == stage) {
+            return;
+        }
+        Exchange exchange = sentEvent.getExchange();
+        String variant = NONE;
+        if (INTEGRATION.equals(stage.name)) {
+            variant = integrationName(exchange, stage.route);
+        } else if (LOGIC.equals(stage.name)) {
+            variant = logicStage(exchange);
+        }
+        String service = valueOrNone(exchange.getProperty("serviceName"));
+        String logicType = valueOrNone(exchange.getProperty("logicType"));
+        Map<String, Timer> timers = stage.timers
+                .computeIfAbsent(service, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(logicType, key -> new ConcurrentHashMap<>());
+        Timer timer = timers.get(variant);
+        if (null == timer) {
+            timer = timers.computeIfAbsent(variant, key -> stage.register(meterRegistry, service, logicType, key));
+        }
+        timer.record(sentEvent.getTimeTaken(), TimeUnit.MILLISECONDS);
+    }
+
+    private static void stage(String endpoint, String route, String stage) {
+        STAGES.put(endpoint, new String[]{route, stage});
+    }
+
+    /**
+     * 端点URI去掉协议及其后的"//"
+     */
+    private static String path(String uri) {
+        int start = uri.indexOf(':') + 1;
+        if (uri.startsWith("//", start)) {
+            start += 2;
+        }
+        return uri.substring(start);
+    }
+
+    /**
+     * 逻辑请求按请求头中的逻辑路径区分前置校验、逻辑与后置校验
+     */
+    private static String logicStage(Exchange exchange) {
+        String logic = exchange.getIn().getHeader("logic", String.class);
+        if (null == logic || logic.endsWith("/logic")) {
+            return LOGIC;
+        }
+        if (logic.endsWith("/before")) {
+            return LOGIC_BEFORE;
+        }
+        if (logic.endsWith("/after")) {
+            return LOGIC_AFTER;
+        }
+        return LOGIC + "-" + logic.substring(logic.lastIndexOf('/') + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String integrationName(Exchange exchange, String route) {
+        Object current = exchange.getProperty("businesses".equals(route) ? "currentIntegrateParam" : "current");
+        if (!(current instanceof Map)) {
+            return NONE;
+        }
+        Map<String, Object> integration = (Map<String, Object>) current;
+        return valueOrNone(integration.get("businesses".equals(route) ? "paramName" : "name"));
+    }
+
+    private static String valueOrNone(Object value) {
+        return null == value ? NONE : value.toString();
+    }
+
+    /**
+     * 阶段端点对应的路由类型、阶段名与计时器，集成阶段按集成名、逻辑阶段按逻辑阶段名区分计时器
+     */
+    private static final class Stage {
+
+        private final String route;
+
+        private final String name;
+
+        private final Map<String, Map<String, Map<String, Timer>>> timers = new ConcurrentHashMap<>();
+
+        private Stage(String route, String name) {
+            this.route = route;
+            this.name = name;
+        }
+
+        private Timer register(MeterRegistry meterRegistry, String service, String logicType, String variant) {
+            boolean integration = INTEGRATION.equals(name);
+            return Timer.builder("micrc.route.stage")
+                    .description("服务路由各阶段耗时")
+                    .tag("route", route)
+                    .tag("service", service)
+                    .tag("stage", integration ? name : (LOGIC.equals(name) ? variant : name))
+                    .tag("integration", integration ? variant : NONE)
+                    .tag("logicType", logicType)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -28,12 +28,16 @@ import org.kie.internal.io.ResourceFactory;
 import java.io.StringReader;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 public class DMNEvaluator {
 
     private final DMNModel dmnModel;
     private final DMNRuntime dmnRuntime;
+    private final Map<String, List<String>> decisionServiceOutputs = new ConcurrentHashMap<>();
 
     public static DMNEvaluator fromXML(String modelXML) {
         Resource modelResource = ResourceFactory.newReaderResource(new StringReader(modelXML), "UTF-8");
@@ -68,4 +72,33 @@ public class DMNEvaluator {
         DMNContext dmnContext = new DynamicDMNContextBuilder(dmnRuntime.newContext(), dmnModel).populateContextWith(context);
         return dmnRuntime.evaluateAll(dmnModel, dmnContext);
     }
+
+    /**
+     * 决策服务的输出决策名称，按模型中声明的顺序
+     *
+     * @param decisionServiceName   decision service name
+     * @return                      output decision names
+     */
+    public List<String> getDecisionServiceOutputs(String decisionServiceName) {
+        return decisionServiceOutputs.computeIfAbsent(decisionServiceName, name -> dmnModel.getDecisionServices().stream()
+                .filter(decisionService -> name.equals(decisionService.getName()))
+                .findFirst()
+                .map(decisionService -> decisionService.getDecisionService().getOutputDecision().stream()
+                        .map(reference -> {
+                            String id = reference.getHref().substring(reference.getHref().indexOf('#') + 1);
+                            if (null == dmnModel.getDecisionById(id)) {
+                                throw new IllegalStateException("the output decision " + reference.getHref()
+                                        + " of decision service " + name + " not found in dmn model " + dmnModel.getName());
+                            }
+                            return dmnModel.getDecisionById(id).getName();
+                        })
+                        .collect(Collectors.toUnmodifiableList()))
+                .orElseThrow(() -> new IllegalStateException("the decision service " + name
+                        + " not found in dmn model " + dmnModel.getName())));
+    }
+
+    public DMNResult evaluateDecisionService(String decisionServiceName, Map<String, Object> context) {
+        DMNContext dmnContext = new DynamicDMNContextBuilder(dmnRuntime.newContext(), dmnModel).populateContextWith(context);
+        return dmnRuntime.evaluateDecisionService(dmnModel, dmnContext, decisionServiceName);
+    }
 }
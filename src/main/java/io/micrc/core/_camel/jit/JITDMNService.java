@@ -1,23 +1,136 @@
 package io.micrc.core._camel.jit;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrc.lib.EncryptUtils;
+import io.micrc.lib.FileUtils;
+import io.micrc.lib.JsonUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.dmn.api.core.DMNDecisionResult;
+import org.kie.dmn.api.core.DMNMessage;
 import org.kie.dmn.api.core.DMNResult;
+import org.kie.dmn.core.internal.utils.MarshallingStubUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.time.chrono.ChronoPeriod;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JITDMN服务实现
+ * 编译后的DMNEvaluator按模型内容摘要缓存，DMNRuntime在各次评估间共享，每次评估使用独立上下文
  *
  * @author hyosunghan
  * @date 2022/10/22 09:57
  * @since 0.0.1
  */
+@Slf4j
 @Service
 public class JITDMNService {
 
+    /**
+     * 注解中声明的DMN文件路径，扫描注册阶段收集，服务初始化时预热
+     */
+    private static final Set<String> MODEL_FILES = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 与决策服务REST接口相同的序列化配置，FEEL的日期、时间、期间输出为ISO字符串，数值输出为JSON数字
+     */
+    private static final ObjectMapper RESULT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .registerModule(new SimpleModule().addSerializer(ChronoPeriod.class, ToStringSerializer.instance))
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS);
+
+    private final Cache<String, DMNEvaluator> evaluators;
+
+    /**
+     * DMN文件路径与模型内容摘要的对应，文件内容在运行期不变，只读取一次
+     */
+    private final Map<String, String> modelFileKeys = new ConcurrentHashMap<>();
+
+    public JITDMNService(@Value("${micrc.dmn.cache.maximum-size:256}") long maximumSize) {
+        this.evaluators = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * 登记需要预热的DMN文件
+     *
+     * @param filePath  classpath file path
+     */
+    public static void registerModelFile(String filePath) {
+        if (null != filePath && filePath.endsWith(".dmn")) {
+            MODEL_FILES.add(filePath);
+        }
+    }
+
+    @PostConstruct
+    public void warmup() {
+        MODEL_FILES.forEach(filePath -> {
+            fileEvaluator(filePath);
+            log.info("DMN预热完成：{}", filePath);
+        });
+    }
+
+    public Cache<String, DMNEvaluator> evaluators() {
+        return evaluators;
+    }
+
     public JITDMNResult evaluateModel(String modelXML, Map<String, Object> context) {
-        DMNEvaluator dmnEvaluator = DMNEvaluator.fromXML(modelXML);
+        DMNEvaluator dmnEvaluator = evaluator(modelXML);
         DMNResult dmnResult = dmnEvaluator.evaluate(context);
         return new JITDMNResult(dmnEvaluator.getNamespace(), dmnEvaluator.getName(), dmnResult);
     }
+
+    /**
+     * 执行DMN文件中的决策服务，只返回决策服务的输出决策。
+     * 输出按REST接口的序列化配置写出后再读取为Map，与REST响应经json解码后的结果一致(数值为Integer/Long/Double，时间为ISO字符串)
+     *
+     * @param filePath              classpath dmn file path
+     * @param decisionServiceName   decision service name
+     * @param context               input context
+     * @return                      output decisions
+     */
+    @SuppressWarnings("unchecked")
+    public HashMap<String, Object> evaluateDecisionService(String filePath, String decisionServiceName, Map<String, Object> context) {
+        DMNEvaluator dmnEvaluator = fileEvaluator(filePath);
+        DMNResult dmnResult = dmnEvaluator.evaluateDecisionService(decisionServiceName, context);
+        if (dmnResult.hasErrors()) {
+            throw new RuntimeException("the dmn " + filePath + " decision service " + decisionServiceName
+                    + " evaluate fail: " + dmnResult.getMessages(DMNMessage.Severity.ERROR));
+        }
+        Map<String, Object> outputs = new LinkedHashMap<>();
+        for (String decisionName : dmnEvaluator.getDecisionServiceOutputs(decisionServiceName)) {
+            DMNDecisionResult decisionResult = dmnResult.getDecisionResultByName(decisionName);
+            Object value = null != decisionResult ? decisionResult.getResult() : dmnResult.getContext().get(decisionName);
+            outputs.put(decisionName, MarshallingStubUtils.stubDMNResult(value, String::valueOf));
+        }
+        try {
+            return JsonUtil.writeValueAsObject(RESULT_MAPPER.writeValueAsString(outputs), HashMap.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("the dmn " + filePath + " decision service " + decisionServiceName
+                    + " result can not serialize: " + e.getMessage(), e);
+        }
+    }
+
+    private DMNEvaluator fileEvaluator(String filePath) {
+        String key = modelFileKeys.computeIfAbsent(filePath, path -> EncryptUtils.sha256(FileUtils.fileReader(path, List.of("dmn"))));
+        return evaluators.get(key, k -> DMNEvaluator.fromXML(FileUtils.fileReader(filePath, List.of("dmn"))));
+    }
+
+    private DMNEvaluator evaluator(String modelXML) {
+        return evaluators.get(EncryptUtils.sha256(modelXML), key -> DMNEvaluator.fromXML(modelXML));
+    }
 }
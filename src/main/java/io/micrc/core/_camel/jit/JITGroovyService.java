@@ -0,0 +1,46 @@
+package io.micrc.core._camel.jit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import groovy.lang.Binding;
+import groovy.lang.GroovyShell;
+import groovy.lang.Script;
+import io.micrc.lib.EncryptUtils;
+import org.codehaus.groovy.runtime.InvokerHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * JITGroovy服务实现
+ * 脚本按内容摘要编译一次并缓存脚本类，每次执行创建新的脚本实例与Binding；
+ * 每个脚本类使用独立的类加载器，淘汰后类与加载器可一并回收
+ *
+ * @author weiguan
+ * @date 2024-07-04 15:12
+ * @since 0.0.1
+ */
+@Service
+public class JITGroovyService {
+
+    private final Cache<String, Class<? extends Script>> scripts;
+
+    public JITGroovyService(@Value("${micrc.groovy.cache.maximum-size:256}") long maximumSize) {
+        this.scripts = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    public Cache<String, Class<? extends Script>> scripts() {
+        return scripts;
+    }
+
+    public Object evaluate(String script, Map<String, Object> variables) {
+        Binding binding = new Binding();
+        variables.forEach(binding::setProperty);
+        return InvokerHelper.createScript(scriptClass(script), binding).run();
+    }
+
+    private Class<? extends Script> scriptClass(String script) {
+        return scripts.get(EncryptUtils.sha256(script), key -> new GroovyShell(JITGroovyService.class.getClassLoader()).parse(script).getClass());
+    }
+}
@@ -2,9 +2,17 @@ package io.micrc.core._camel.springboot;
 
 import io.micrc.core._camel.CamelComponentTempConfiguration;
 import io.micrc.core._camel.EchoProcessor;
+import io.micrc.core._camel.RouteStageMetrics;
 import io.micrc.core._camel.jit.JITDMNService;
+import io.micrc.core._camel.jit.JITGroovyService;
+import io.micrc.core.rpc.IntegrationMemo;
 import io.micrc.lib.EncryptUtils;
+import io.micrc.lib.JsonUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.apache.camel.component.direct.DirectComponent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -19,7 +27,8 @@ import org.springframework.context.annotation.Import;
 @Configuration
 @Import({
         CamelComponentTempConfiguration.class,
-        JITDMNService.class
+        JITDMNService.class,
+        JITGroovyService.class
 })
 public class CustomCamelComponentAutoConfiguration {
 
@@ -80,4 +89,58 @@ public class CustomCamelComponentAutoConfiguration {
     public EchoProcessor echoProcessor() {
         return new EchoProcessor();
     }
+
+    /**
+     * JSLT表达式与JSON Pointer缓存指标，命中、未命中、数量
+     * @return MeterBinder
+     */
+    @Bean
+    public MeterBinder jsltExpressionCacheMetrics() {
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, JsonUtil.transformExpressions(), "micrc.jslt.transform");
+            CaffeineCacheMetrics.monitor(registry, JsonUtil.checkExpressions(), "micrc.jslt.check");
+            CaffeineCacheMetrics.monitor(registry, JsonUtil.pointers(), "micrc.json.pointer");
+        };
+    }
+
+    /**
+     * DMN编译模型缓存指标，命中、未命中、数量
+     * @param jitdmnService jitdmnService
+     * @return MeterBinder
+     */
+    @Bean
+    public MeterBinder dmnEvaluatorCacheMetrics(JITDMNService jitdmnService) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, jitdmnService.evaluators(), "micrc.dmn.evaluator");
+    }
+
+    /**
+     * Groovy脚本类缓存指标，编译次数(load)、命中、数量
+     * @param jitGroovyService jitGroovyService
+     * @return MeterBinder
+     */
+    @Bean
+    public MeterBinder groovyScriptCacheMetrics(JITGroovyService jitGroovyService) {
+        return registry -> CaffeineCacheMetrics.monitor(registry, jitGroovyService.scripts(), "micrc.groovy.script");
+    }
+
+    /**
+     * 请求内集成结果备忘指标，按服务路由类型的命中、未命中次数
+     * @return MeterBinder
+     */
+    @Bean
+    public MeterBinder integrationMemoMetrics() {
+        return IntegrationMemo.metrics();
+    }
+
+    /**
+     * 业务、展示、衍生服务路由阶段耗时，micrc.metrics.route-stage.enabled=false时不注册，路由无额外开销
+     *
+     * @param meterRegistry meter registry
+     * @return              camel event notifier
+     */
+    @Bean
+    @ConditionalOnProperty(name = "micrc.metrics.route-stage.enabled", havingValue = "true", matchIfMissing = true)
+    public RouteStageMetrics routeStageMetrics(MeterRegistry meterRegistry) {
+        return new RouteStageMetrics(meterRegistry);
+    }
 }
@@ -1,11 +1,19 @@
 package io.micrc.core.application.businesses;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.main.JsonSchema;
 import io.micrc.core.AbstractRouteTemplateParamDefinition;
 import io.micrc.core.MicrcRouteBuilder;
+import io.micrc.core._camel.jit.JITDMNService;
 import io.micrc.core.annotations.application.businesses.LogicType;
 import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration.CommandParamIntegration;
 import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration.LogicIntegration;
+import io.micrc.core.persistence.MicrcJpaRepository;
 import io.micrc.core.persistence.snowflake.SnowFlakeIdentity;
+import io.micrc.core.rpc.IntegrationMemo;
 import io.micrc.core.rpc.IntegrationsInfo;
 import io.micrc.core.rpc.LogicRequest;
 import io.micrc.lib.*;
@@ -21,7 +29,6 @@ import org.apache.camel.support.ExpressionAdapter;
 import org.springframework.beans.BeanUtils;
 import org.springframework.util.StringUtils;
 
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -65,18 +72,27 @@ public class ApplicationBusinessesServiceRouteConfiguration extends MicrcRouteBu
                 .templateParameter("embeddedIdentityFullClassName", null, "embedded identity full class name")
                 .templateParameter("timePathsJson", null, "time path list json")
                 .templateParameter("batchPropertyPath", null, "batch property path")
+                .templateParameter("fieldMap", null, "cascade field map")
+                .templateParameter("commandTree", "false", "command tree mode")
+                .templateParameter("logicExecutor", "rest", "dmn logic executor, rest or local")
+                .templateParameter("batchChunkSize", "1", "batch items per transaction")
+                .templateParameter("batchParallelism", "1", "batch chunks executed in parallel")
                 .from("businesses:{{serviceName}}")
+                .setProperty("serviceName", constant("{{serviceName}}"))
                 .setProperty("repositoryName", constant("{{repositoryName}}"))
                 .setProperty("embeddedIdentityFullClassName", constant("{{embeddedIdentityFullClassName}}"))
-                .setProperty("commandParamIntegrationsJson", constant("{{commandParamIntegrationsJson}}"))
                 .setProperty("logicName", constant("{{logicName}}"))
                 .setProperty("logicType", constant("{{logicType}}"))
                 .setProperty("logicPath", constant("{{logicPath}}"))
                 .setProperty("batchPropertyPath", constant("{{batchPropertyPath}}"))
                 .setProperty("aggregationPath", constant("{{aggregationPath}}"))
-                .setProperty("logicIntegrationJson").groovy("new String(java.util.Base64.getDecoder().decode('{{logicIntegrationJson}}'))")
-                .setProperty("timePathsJson", constant("{{timePathsJson}}"))
-                .setProperty("fieldMap", constant("{{fieldMap}}"))
+                // 执行计划，启动时已解析映射、集成、时间路径与级联字段
+                .setProperty(BusinessesServicePlan.SERVICE_PLAN)
+                    .method("ApplicationBusinessesServiceRouteTemplateParameterSource", "plan('{{serviceName}}')")
+                .setProperty("commandTree", constant("{{commandTree}}"))
+                .setProperty("logicExecutor", constant("{{logicExecutor}}"))
+                // 请求内集成结果备忘，随交换释放
+                .setProperty(IntegrationMemo.INTEGRATION_MEMO, method(IntegrationMemo.class, "create"))
                 .transacted()
                 // 1.处理请求
                 .to("direct://handle-request")
@@ -109,26 +125,46 @@ public class ApplicationBusinessesServiceRouteConfiguration extends MicrcRouteBu
                     .to("direct://executor-data-one")
                 .endChoice()
                 .otherwise()
-                    .setBody(exchangeProperty("batchIntegrateResult"))
-                    .split(new SplitList())
+                    .to("direct://batch-prefetch")
+                    .to("direct://executor-data-batch")
+                .endChoice()
+                .end();
+
+        from("direct://executor-data-batch")
+                .choice()
+                .when(exchange -> BusinessesServicePlan.read(exchange.getProperties()).isBatchChunked())
+                    // 分块提交，块间并行，失败块逐项重试隔离失败项
+                    .process(exchange -> exchange.getContext().getRegistry()
+                            .findSingleByType(BusinessesBatchExecution.class).execute(exchange))
+                .endChoice()
+                .otherwise()
+                    // 批量集成结果流式拆分，逐项解析
+                    .process(exchange -> exchange.getIn().setBody(BatchItems.iterate(exchange.getProperties())))
+                    .split(body()).streaming()
                         .to("direct://executor-data-batch-item")
                     .end()
                 .endChoice()
                 .end();
 
+        from("direct://batch-prefetch")
+                .bean(BatchRepositoryPrefetch.class, "prefetch");
+
         from("direct://executor-data-batch-item")
                 .transacted("PROPAGATION_REQUIRES_NEW")
-                .bean(JsonUtil.class, "writeValueAsString")
-                .setHeader("path", simple("${exchange.properties.get(batchNamePath)}"))
-                .setHeader("value", body())
-                .setBody(exchangeProperty("commandJson"))
-                .to("json-patch://patch")
-                .setProperty("commandJson", body())
+                .to("direct://executor-data-batch-item-execute");
+
+        from("direct://executor-data-batch-item-execute")
+                .process(exchange -> {
+                    Map<String, Object> properties = exchange.getProperties();
+                    ObjectNode commandNode = CommandNode.readCopy(properties);
+                    JsonUtil.patch(commandNode, (String) properties.get("batchNamePath"), JsonUtil.readTree(exchange.getIn().getBody()));
+                    CommandNode.write(properties, commandNode);
+                })
                 .process(exchange -> {
-                    // 需要批处理的全部标记为未完成，并初始化
+                    // 需要批处理的全部标记为未完成，并初始化，批次项间不共享集成状态
                     List<CommandParamIntegration> batchIntegrate = ClassCastUtils.castArrayList(
                                     exchange.getProperty("batchIntegrate", List.class), CommandParamIntegration.class)
-                            .stream().peek(ba -> ba.setIntegrationComplete(false)).collect(Collectors.toList());
+                            .stream().map(ba -> ba.toBuilder().integrationComplete(false).build()).collect(Collectors.toList());
                     exchange.setProperty("commandParamIntegrations", batchIntegrate);
                 })
                 .dynamicRouter(method(IntegrationCommandParams.class, "dynamicIntegrate"))
@@ -136,151 +172,124 @@ public class ApplicationBusinessesServiceRouteConfiguration extends MicrcRouteBu
 
         from("direct://handle-request")
                 .setProperty("command", body())
-                .marshal().json().convertBodyTo(String.class)
-                .setProperty("commandJson", body());
+                .choice()
+                .when(exchangeProperty("commandTree").isEqualTo("true"))
+                    .process(exchange -> CommandNode.write(exchange.getProperties(),
+                            (ObjectNode) JsonUtil.writeValueAsTree(exchange.getIn().getBody())))
+                .endChoice()
+                .otherwise()
+                    .marshal().json().convertBodyTo(String.class)
+                    .setProperty("commandJson", body())
+                .endChoice()
+                .end();
 
         from("direct://handle-result")
                 .process(exchange -> {
-                    String commandJson = (String) exchange.getProperty("commandJson");
                     Object command = exchange.getProperty("command");
-                    BeanUtils.copyProperties(JsonUtil.writeValueAsObject(commandJson, command.getClass()), command);
+                    BeanUtils.copyProperties(CommandNode.toObject(exchange.getProperties(), command.getClass()), command);
                 });
 
         from("direct://dynamic-integration")
                 .process(exchange -> {
                     // 初始化需要的集成
-                    List<CommandParamIntegration> commandParamIntegrations = JsonUtil.writeValueAsList(
-                            (String) exchange.getProperties().get("commandParamIntegrationsJson"), CommandParamIntegration.class);
-                    exchange.setProperty("commandParamIntegrations", commandParamIntegrations);
+                    exchange.setProperty("commandParamIntegrations",
+                            BusinessesServicePlan.read(exchange.getProperties()).newCommandParamIntegrations());
                 })
                 .dynamicRouter(method(IntegrationCommandParams.class, "dynamicIntegrate"));
 
         from("direct://parse-time")
-                .setBody(exchangeProperty("timePathsJson"))
-                .process(exchange -> {
-                    List<String[]> timePaths = JsonUtil.writeValueAsList(exchange.getIn().getBody(String.class), String.class)
-                            .stream().map(i -> i.split("/")).collect(Collectors.toList());
-                    exchange.getIn().setBody(timePaths);
-                })
-                .setProperty("timePaths", body());
+                .process(exchange -> exchange.setProperty("timePaths",
+                        BusinessesServicePlan.read(exchange.getProperties()).getTimePaths()));
 
         from("direct://copy-source")
-                .setBody(exchangeProperty("commandJson"))
-                .setHeader("pointer", constant("/source"))
-                .to("json-patch://select")
-                .bean(JsonUtil.class, "writeValueAsString")
-                .setHeader("path", constant("/target"))
-                .setHeader("value", body())
-                .setBody(exchangeProperty("commandJson"))
-                .to("json-patch://patch")
-                .setProperty("commandJson", body());
+                .process(exchange -> {
+                    Map<String, Object> properties = exchange.getProperties();
+                    ObjectNode commandNode = CommandNode.read(properties);
+                    JsonNode source = commandNode.at("/source");
+                    JsonUtil.patch(commandNode, "/target", source.isMissingNode() ? NullNode.getInstance() : source.deepCopy());
+                    CommandNode.write(properties, commandNode);
+                });
 
         from("direct://save-entity")
                 .transacted()
                 .process(exchange -> {
                     Map<String, Object> properties = exchange.getProperties();
-                    String commandJson = (String) exchange.getProperties().get("commandJson");
-                    Object target = JsonUtil.readPath(commandJson, "/target");
-                    properties.put("hasTarget", target != null);
-                    if (null == target) {
+                    ObjectNode commandNode = CommandNode.read(properties);
+                    JsonNode target = commandNode.at("/target");
+                    properties.put("hasTarget", !target.isMissingNode() && !target.isNull());
+                    if (target.isMissingNode() || target.isNull()) {
                         return;
                     }
-                    Object id = JsonUtil.readPath(commandJson, "/target/identity/id");
-                    if (null == id) {
-                        commandJson = JsonUtil.add(commandJson, "/target/identity/id", String.valueOf(SnowFlakeIdentity.getInstance().nextId()));
-                        properties.put("commandJson", commandJson);
+                    if (null == JsonUtil.readPath(target, "/identity/id")) {
+                        JsonUtil.add(target, "/identity/id", LongNode.valueOf(SnowFlakeIdentity.getInstance().nextId()));
                     }
                     // 暂存target版本，使用source版本执行存储
-                    Object targetVersion = JsonUtil.readPath(commandJson, "/target/version");
+                    Object targetVersion = JsonUtil.readPath(target, "/version");
                     if (targetVersion != null) {
                         properties.put("version", targetVersion);
-                        commandJson = JsonUtil.patch(commandJson, "/target/version", JsonUtil.writeValueAsString(JsonUtil.readPath(commandJson, "/source/version")));
-                        properties.put("commandJson", commandJson);
+                        JsonNode sourceVersion = commandNode.at("/source/version");
+                        JsonUtil.patch(target, "/version", sourceVersion.isMissingNode() ? NullNode.getInstance() : sourceVersion);
                     }
-                    // 查看是否存在级联操作
-                    String fieldStr = (String) properties.get("fieldMap");
-                    Map<String, String> fieldMap = JsonUtil.writeValueAsObject(fieldStr, Map.class);
-                    if (!fieldMap.isEmpty()) {
-                        HashMap<String, Object> batchMap = new HashMap<>();
-                        HashMap<String, Object> oneMap = new HashMap<>();
-                        for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
-                            String filedName = entry.getKey();
-                            String node = JsonUtil.readTree(commandJson).at("/target/" + filedName).toString();
-                            if ("".equals(node)) {
+                    // 查看是否存在级联操作，级联节点摘出后由执行计划中的setter直接绑定
+                    BusinessesServicePlan plan = BusinessesServicePlan.read(properties);
+                    if (plan.hasCascade()) {
+                        Map<String, JsonNode> cascadeNodes = new LinkedHashMap<>();
+                        for (String filedName : plan.getCascadeFields().keySet()) {
+                            JsonNode node = target.path(filedName);
+                            if (node.isMissingNode() || node.isNull()) {
                                 continue;
                             }
-                            if(JsonUtil.hasPath(node, "/identity/id")) {
+                            if (node.isObject()) {
                                 // 多对一
-                                Object identity = JsonUtil.readPath(node, "/identity/id");
-                                if (identity == null) {
-                                    node = JsonUtil.add(node, "/identity/id",
-                                            String.valueOf(SnowFlakeIdentity.getInstance().nextId()));
+                                if (null == JsonUtil.readPath(node, "/identity/id")) {
+                                    JsonUtil.add(node, "/identity/id", LongNode.valueOf(SnowFlakeIdentity.getInstance().nextId()));
                                 }
-                                // 将node转换成对应的实体
-                                oneMap.put(filedName, node);
                             } else {
                                 // 一对多
-                                List<Object> list = JsonUtil.writeValueAsList(node, Object.class);
-                                for (int i = 0; i < list.size(); i++) {
-                                    String entityJson = JsonUtil.writeValueAsString(list.get(i));
-                                    Object identity = JsonUtil.readPath(entityJson, "/identity/id");
-                                    if (identity == null) {
-                                        entityJson = JsonUtil.add(entityJson, "/identity/id", String.valueOf(SnowFlakeIdentity.getInstance().nextId()));
+                                for (JsonNode entityNode : node) {
+                                    if (null == JsonUtil.readPath(entityNode, "/identity/id")) {
+                                        JsonUtil.add(entityNode, "/identity/id", LongNode.valueOf(SnowFlakeIdentity.getInstance().nextId()));
                                     }
-                                    list.set(i, entityJson);
                                 }
-                                // 将node转换成对应的实体
-                                batchMap.put(filedName, list.toString());
                             }
-                            commandJson = JsonUtil.patch(commandJson, "/target/" + filedName, "null");
+                            cascadeNodes.put(filedName, node);
+                            JsonUtil.patch(target, "/" + filedName, NullNode.getInstance());
                         }
-                        properties.put("commandJson", commandJson);
-                        properties.put("batchMap", JsonUtil.writeValueAsString(batchMap));
-                        properties.put("oneMap", JsonUtil.writeValueAsString(oneMap));
+                        properties.put("cascadeNodes", cascadeNodes);
+                        properties.put("cascadeTarget", target);
+                    }
+                    CommandNode.write(properties, commandNode);
+                    if (!plan.hasCascade()) {
+                        exchange.getIn().setBody(JsonUtil.writeValueAsStringRetainNull(target));
                     }
                 })
-                .setBody(exchangeProperty("commandJson"))
-                .setHeader("pointer", constant("/target"))
-                .to("json-patch://select")
-                .marshal().json().convertBodyTo(String.class)
                 .setHeader("CamelJacksonUnmarshalType").exchangeProperty("aggregationPath")
                 .choice()
                 .when(constant("false").isEqualTo(simple("${exchange.properties.get(hasTarget)}")))
                     // nothing to do
                 .endChoice()
                 // 不存在级联操作
-                .when(simple("${exchange.properties.get(fieldMap)}").isEqualTo("{}"))
+                .when(exchange -> !BusinessesServicePlan.read(exchange.getProperties()).hasCascade())
                 .to("dataformat:jackson:unmarshal?allow-unmarshall-type=true")
                 .endChoice()
                 .otherwise()
                 .process(exchange -> {
-                    String entityPath = exchange.getIn().getHeader("CamelJacksonUnmarshalType", String.class);
-                    Class<?> entityClass = Class.forName(entityPath);
-                    String fieldStr = (String) exchange.getProperties().get("fieldMap");
-                    Map<String, String> fieldMap = JsonUtil.writeValueAsObject(fieldStr, Map.class);
-                    String oneStr = (String) exchange.getProperties().get("oneMap");
-                    Map<String, Object> oneMap = JsonUtil.writeValueAsObject(oneStr, Map.class);
-                    String batchStr = (String) exchange.getProperties().get("batchMap");
-                    Map<String, Object> batchMap = JsonUtil.writeValueAsObject(batchStr, Map.class);
-                    Method[] methods = entityClass.getMethods();
-                    Object entity = JsonUtil.writeValueAsObject(exchange.getIn().getBody(String.class), entityClass);
-                    for (Map.Entry<String, String> entry : fieldMap.entrySet()) {
-                        String key = entry.getKey();
-                        Class<?> clazz = Class.forName(entry.getValue());
-                        Method method = Arrays.stream(methods)
-                                .filter(m -> m.getName().startsWith("set") && m.getName().contains(StringUtil.upperStringFirst(key)))
-                                .findFirst().orElseThrow();
-                        if (batchMap.containsKey(key) && batchMap.get(key) != null) {
-                            method.invoke(entity, JsonUtil.writeValueAsList(batchMap.get(key).toString(), clazz));
-                        } else if (oneMap.containsKey(key) && oneMap.get(key) != null) {
-                            method.invoke(entity, JsonUtil.writeValueAsObject(oneMap.get(key).toString(), clazz));
+                    Map<String, Object> properties = exchange.getProperties();
+                    BusinessesServicePlan plan = BusinessesServicePlan.read(properties);
+                    @SuppressWarnings("unchecked")
+                    Map<String, JsonNode> cascadeNodes = (Map<String, JsonNode>) properties.remove("cascadeNodes");
+                    Object entity = JsonUtil.writeTreeAsObject((JsonNode) properties.remove("cascadeTarget"), plan.getAggregationClass());
+                    for (Map.Entry<String, JsonNode> entry : cascadeNodes.entrySet()) {
+                        try {
+                            plan.getCascadeFields().get(entry.getKey()).bind(entity, entry.getValue());
+                        } catch (Throwable e) {
+                            throw new IllegalArgumentException("cascade field " + entry.getKey() + " bind fail", e);
                         }
                     }
                     exchange.getIn().setBody(entity);
                 })
                 .endChoice()
                 .end()
-                .removeHeader("pointer")
                 .choice()
                 .when(constant("false").isEqualTo(simple("${exchange.properties.get(hasTarget)}")))
                     // nothing to do
@@ -297,27 +306,26 @@ public class ApplicationBusinessesServiceRouteConfiguration extends MicrcRouteBu
 
         from("direct://save-message")
                 .transacted()
-                .setBody(exchangeProperty("commandJson"))
-                .setHeader("pointer", constant("/event/eventName"))
-                .to("json-patch://select")
-                .setProperty("eventName", body())
-                .setBody(exchangeProperty("commandJson"))
+                .process(exchange -> exchange.setProperty("eventName",
+                        JsonUtil.readPath(CommandNode.read(exchange.getProperties()), "/event/eventName")))
                 .choice()
                 .when(simple("${exchange.properties.get(eventName)}").isNull())
                     // nothing to do
                 .endChoice()
                 .when(constant("").isEqualTo(simple("${exchange.properties.get(batchPropertyPath)}")))
+                    .setBody(method(CommandNode.class, "json"))
                     .to("eventstore://store")
                 .endChoice()
                 .otherwise()
-                    .setHeader("pointer", constant("/event/eventBatchData"))
-                    .to("json-patch://select")
-                    .split(new SplitList())
-                        .bean(JsonUtil.class, "writeValueAsString")
-                        .setHeader("path", simple("${exchange.properties.get(batchPropertyPath)}"))
-                        .setHeader("value", body())
-                        .setBody(exchangeProperty("commandJson"))
-                        .to("json-patch://add")
+                    // 直接迭代命令树中的批量事件数据节点，不复制整个批次
+                    .process(exchange -> exchange.getIn().setBody(
+                            CommandNode.read(exchange.getProperties()).path("event").path("eventBatchData").elements()))
+                    .split(body()).streaming()
+                        .process(exchange -> {
+                            Map<String, Object> properties = exchange.getProperties();
+                            exchange.getIn().setBody(CommandNode.jsonWith(properties,
+                                    (String) properties.get("batchPropertyPath"), exchange.getIn().getBody(JsonNode.class)));
+                        })
                         .to("eventstore://store")
                     .end()
                 .endChoice()
@@ -325,13 +333,17 @@ public class ApplicationBusinessesServiceRouteConfiguration extends MicrcRouteBu
 
         from("direct://integration-params")
                 .setBody(exchangeProperty("currentIntegrateParam"))
+                .bean(IntegrationCommandParams.class, "memoLookup")
                 .choice()
+                .when(exchangeProperty(IntegrationMemo.MEMO_HIT).isEqualTo(true))
+                    // 请求内已集成，使用备忘结果
+                .endChoice()
                 .when(constant("").isEqualTo(simple("${exchange.properties.get(currentIntegrateParam).get(protocol)}")))
                     .setBody(simple("${in.body.get(integrateParams).get(id)}"))
                     .marshal().json().convertBodyTo(String.class)
                     .setHeader("CamelJacksonUnmarshalType").simple("${exchange.properties.get(embeddedIdentityFullClassName)}")
                     .to("dataformat:jackson:unmarshal?allow-unmarshall-type=true")
-                    .toD("bean://${exchange.properties.get(repositoryName)}?method=findById")
+                    .to("direct://integration-repository")
                 .endChoice()
                 .otherwise()
                     .setBody(simple("${in.body.get(integrateParams)}"))
@@ -339,9 +351,20 @@ public class ApplicationBusinessesServiceRouteConfiguration extends MicrcRouteBu
                     .to("req://integration")
                 .endChoice()
                 .end()
+                .bean(IntegrationMemo.class, "remember")
                 .bean(IntegrationCommandParams.class, "processResult")
                 .end();
 
+        from("direct://integration-repository")
+                .choice()
+                .when(method(BatchRepositoryPrefetch.class, "prefetched(${body}, ${exchange})"))
+                    .bean(BatchRepositoryPrefetch.class, "fetch(${body}, ${exchange})")
+                .endChoice()
+                .otherwise()
+                    .toD("bean://${exchange.properties.get(repositoryName)}?method=findById")
+                .endChoice()
+                .end();
+
         from("logic://logic-execute")
                 .routeId("logic://logic-execute")
                 .choice()
@@ -354,42 +377,50 @@ public class ApplicationBusinessesServiceRouteConfiguration extends MicrcRouteBu
 
         from("logic://logic-execute-dmn")
                 .routeId("logic://logic-execute-dmn")
-                .setBody(exchangeProperty("commandJson"))
+                .setBody(method(CommandNode.class, "json"))
                 // 2.1 执行前置校验
                 .setHeader("logic", simple("${exchange.properties.get(logicName)}/before"))
-                .bean(LogicRequest.class, "request")
-                .unmarshal().json(HashMap.class)
+                .to("logic://logic-request")
                 .bean(ResultCheck.class, "check(${body}, ${exchange})")
                 // TODO 逻辑检查异常是否存在及回滚事务
                 // 2.2 执行逻辑
-                .setBody(exchangeProperty("logicIntegrationJson"))
-                .unmarshal().json(LogicIntegration.class)
-                .bean(LogicInParamsResolve.class, "toLogicParams(${body}, ${exchange.properties.get(commandJson)}, ${exchange.properties.get(timePaths)}, ${exchange.properties.get(logicType)}, ${exchange.properties.get(logicName)})")
+                .process(exchange -> exchange.getIn().setBody(
+                        BusinessesServicePlan.read(exchange.getProperties()).getLogicIntegration()))
+                .bean(LogicInParamsResolve.class, "toLogicParams(${body}, ${exchange})")
                 .setHeader("logic", simple("${exchange.properties.get(logicName)}/logic"))
-                .bean(LogicRequest.class, "request")
-                .unmarshal().json(HashMap.class)
-                .bean(LogicInParamsResolve.class, "toTargetParams(${body}, ${exchange.properties.get(commandJson)}, ${exchange.properties.get(logicIntegrationJson)}, ${exchange.properties.get(timePaths)}, ${exchange.properties.get(logicType)}, ${exchange.properties.get(logicName)})")
-                .setProperty("commandJson", body())
+                .to("logic://logic-request")
+                .bean(LogicInParamsResolve.class, "toTargetParams(${body}, ${exchange})")
                 // 2.3 执行后置校验
+                .setBody(method(CommandNode.class, "json"))
                 .setHeader("logic", simple("${exchange.properties.get(logicName)}/after"))
-                .bean(LogicRequest.class, "request")
-                .unmarshal().json(HashMap.class)
+                .to("logic://logic-request")
                 .bean(ResultCheck.class, "check(${body}, ${exchange})")
                 // TODO 逻辑检查异常是否存在及回滚事务
                 .end();
 
 
+        from("logic://logic-request")
+                .routeId("logic://logic-request")
+                .choice()
+                .when(exchangeProperty("logicExecutor").isEqualTo("local"))
+                    .bean(LocalLogicRequest.class, "request")
+                .endChoice()
+                .otherwise()
+                    .bean(LogicRequest.class, "request")
+                    .unmarshal().json(HashMap.class)
+                .endChoice()
+                .end();
+
         from("logic://logic-execute-groovy")
                 .routeId("logic://logic-execute-groovy")
                 // 执行逻辑
-                .setBody(exchangeProperty("logicIntegrationJson"))
-                .unmarshal().json(LogicIntegration.class)
-                .bean(LogicInParamsResolve.class, "toLogicParams(${body}, ${exchange.properties.get(commandJson)}, ${exchange.properties.get(timePaths)}, ${exchange.properties.get(logicType)}, ${exchange.properties.get(logicName)})")
+                .process(exchange -> exchange.getIn().setBody(
+                        BusinessesServicePlan.read(exchange.getProperties()).getLogicIntegration()))
+                .bean(LogicInParamsResolve.class, "toLogicParams(${body}, ${exchange})")
                 .setHeader("groovy", simple("${exchange.properties.get(logicPath)}"))
                 .to("dynamic-groovy://execute")
                 .unmarshal().json(HashMap.class)
-                .bean(LogicInParamsResolve.class, "toTargetParams(${body}, ${exchange.properties.get(commandJson)}, ${exchange.properties.get(logicIntegrationJson)}, ${exchange.properties.get(timePaths)}, ${exchange.properties.get(logicType)}, ${exchange.properties.get(logicName)})")
-                .setProperty("commandJson", body())
+                .bean(LogicInParamsResolve.class, "toTargetParams(${body}, ${exchange})")
                 .end();
     }
 
@@ -479,10 +510,30 @@ public class ApplicationBusinessesServiceRouteConfiguration extends MicrcRouteBu
          * 存在级联操作的字段
          */
         protected String fieldMap;
+
+        /**
+         * 命令树模式，开启后命令在整个执行过程中以ObjectNode存在
+         */
+        protected String commandTree;
+
+        /**
+         * DMN逻辑执行方式，rest为请求逻辑服务，local为进程内执行logicPath指定的DMN文件
+         */
+        protected String logicExecutor;
+
+        /**
+         * 批量执行时每个事务提交的批次项数量
+         */
+        protected String batchChunkSize;
+
+        /**
+         * 批量执行时并行执行的批次块数量
+         */
+        protected String batchParallelism;
     }
 
     @Data
-    @SuperBuilder
+    @SuperBuilder(toBuilder = true)
     @NoArgsConstructor
     public static class CommandParamIntegration {
 
@@ -558,35 +609,60 @@ public class ApplicationBusinessesServiceRouteConfiguration extends MicrcRouteBu
     }
 }
 
+/**
+ * 进程内DMN逻辑请求，按header中的逻辑路径(逻辑名/决策服务名)执行logicPath指定DMN文件中的决策服务
+ */
+class LocalLogicRequest {
+
+    public static HashMap<String, Object> request(String body, Exchange exchange) {
+        String logic = exchange.getIn().getHeader("logic", String.class);
+        String logicPath = exchange.getProperty("logicPath", String.class);
+        Map<String, Object> context = JsonUtil.writeValueAsObjectRetainNull(body, Map.class);
+        JITDMNService jitdmnService = exchange.getContext().getRegistry().findSingleByType(JITDMNService.class);
+        return jitdmnService.evaluateDecisionService(logicPath, logic.substring(logic.lastIndexOf("/") + 1), context);
+    }
+}
+
 /**
  * 逻辑执行参数处理
  */
 @Slf4j
 class LogicInParamsResolve {
 
-    public String toLogicParams(LogicIntegration logicIntegration, String commandJson, List<String[]> timePathList, String logicType, String logicName) {
+    public String toLogicParams(LogicIntegration logicIntegration, Exchange exchange) {
+        Map<String, Object> properties = exchange.getProperties();
+        ObjectNode commandNode = CommandNode.read(properties);
+        TimeReplaceUtil.TimePaths timePaths = BusinessesServicePlan.read(properties).getCompiledTimePaths();
+        String logicType = (String) properties.get("logicType");
+        String logicName = (String) properties.get("logicName");
         Map<String, Object> logicParams = new HashMap<>();
         logicIntegration.getParamMappingMap().forEach((key, mapping) -> {
             // 原始结果
-            String value = JsonUtil.transAndCheck(mapping, commandJson, null);
+            String value = JsonUtil.transAndCheck(mapping, commandNode, null);
             if (null == value) {
                 // dmn 入参为null 也需要保留
                 logicParams.put(key, null);
                 return;
             }
+            JsonNode valueNode = JsonUtil.readTree(value);
             if (LogicType.DMN.name().equals(logicType)) {
-                value = TimeReplaceUtil.matchTimePathAndReplaceTime(timePathList, "", value, String.class);// 根目录路径为""
+                valueNode = TimeReplaceUtil.matchTimePathAndReplaceTime(timePaths, "", valueNode, String.class);// 根目录路径为""
             }
-            logicParams.put(key, JsonUtil.writeValueAsObject(value, Object.class));
+            logicParams.put(key, JsonUtil.writeTreeAsObject(valueNode, Object.class));
         });
         String params = JsonUtil.writeValueAsStringRetainNull(logicParams);
         log.info("业务执行条件{}：{}", logicName, params);
         return params;
     }
 
-    public String toTargetParams(Map<String, Object> logicResult, String commandJson, String logicIntegrationJson, List<String[]> timePathList, String logicType, String logicName) {
+    public void toTargetParams(Map<String, Object> logicResult, Exchange exchange) {
+        Map<String, Object> properties = exchange.getProperties();
+        ObjectNode commandNode = CommandNode.read(properties);
+        TimeReplaceUtil.TimePaths timePaths = BusinessesServicePlan.read(properties).getCompiledTimePaths();
+        String logicType = (String) properties.get("logicType");
+        String logicName = (String) properties.get("logicName");
         Object angle = logicResult.get("angle");
-        LogicIntegration logicIntegration = JsonUtil.writeValueAsObject(logicIntegrationJson, LogicIntegration.class);
+        LogicIntegration logicIntegration = BusinessesServicePlan.read(properties).getLogicIntegration();
         String resultJson = JsonUtil.writeValueAsString(logicResult);
         log.info("业务执行结果{}：{}", logicName, resultJson);
         for (Map.Entry<String, String> entry : logicIntegration.getResultMappingMap().entrySet()) {
@@ -600,13 +676,14 @@ class LogicInParamsResolve {
                 continue;
             }
             // 补全所有目的路径不存在的节点
-            commandJson = JsonUtil.supplementNotExistsNode(commandJson, targetPath);
+            JsonUtil.supplementNotExistsNode(commandNode, targetPath);
+            JsonNode valueNode = JsonUtil.readTree(value);
             if (LogicType.DMN.name().equals(logicType)) {
-                value = TimeReplaceUtil.matchTimePathAndReplaceTime(timePathList, targetPath, value, Long.class);
+                valueNode = TimeReplaceUtil.matchTimePathAndReplaceTime(timePaths, targetPath, valueNode, Long.class);
             }
-            commandJson = JsonUtil.patch(commandJson, targetPath, value);
+            JsonUtil.patch(commandNode, targetPath, valueNode);
         }
-        return commandJson;
+        CommandNode.write(properties, commandNode);
     }
 }
 
@@ -615,8 +692,8 @@ class IntegrationCommandParams {
 
     public static String dynamicIntegrate(@ExchangeProperties Map<String, Object> properties) {
         // 1.判断是否有需要集成的参数
-        List<CommandParamIntegration> commandParamIntegrations = ClassCastUtils.castArrayList(properties
-                .get("commandParamIntegrations"), CommandParamIntegration.class);
+        @SuppressWarnings("unchecked")
+        List<CommandParamIntegration> commandParamIntegrations = (List<CommandParamIntegration>) properties.get("commandParamIntegrations");
         List<CommandParamIntegration> unIntegrateParams = commandParamIntegrations.stream()
                 .filter(i -> !i.getIntegrationComplete()).collect(Collectors.toList());
         properties.put("unIntegrateParams", unIntegrateParams);
@@ -625,12 +702,11 @@ class IntegrationCommandParams {
         }
         String logicName = (String) properties.get("logicName");
         log.info("业务未集成{}：{}", logicName, unIntegrateParams.stream().map(CommandParamIntegration::getParamName).collect(Collectors.joining(",")));
-        Map<String, Object> currentIntegration = findExecutable(unIntegrateParams, (String) properties.get("commandJson"), logicName);
+        Map<String, Object> currentIntegration = findExecutable(unIntegrateParams, CommandNode.read(properties), logicName);
         if (null == currentIntegration) {
             // 清除中间变量
             properties.remove("currentIntegrateParam");
             properties.remove("unIntegrateParams");
-            properties.remove("commandParamIntegrationsJson");
             properties.remove("commandParamIntegrations");
             return null;
         }
@@ -638,6 +714,25 @@ class IntegrationCommandParams {
         return "direct://integration-params";
     }
 
+    /**
+     * 查找请求内当前集成的备忘结果，仓库集成以仓库和主键为键，协议集成以协议和请求参数为键。
+     * 批量项执行中实体会被前序批次项修改，仓库集成不使用备忘
+     *
+     * @param exchange
+     */
+    public static void memoLookup(Exchange exchange) {
+        Map<String, Object> current = ClassCastUtils.castHashMap(exchange.getProperty("currentIntegrateParam"), String.class, Object.class);
+        String protocol = (String) current.get("protocol");
+        if (!"".equals(protocol)) {
+            IntegrationMemo.lookup(exchange, "businesses", "req:" + protocol, "integration", current.get("integrateParams"));
+        } else if (null == exchange.getProperty("batchNamePath")) {
+            IntegrationMemo.lookup(exchange, "businesses", "repository:" + exchange.getProperty("repositoryName"), "findById",
+                    ClassCastUtils.castHashMap(current.get("integrateParams"), String.class, Object.class).get("id"));
+        } else {
+            exchange.setProperty(IntegrationMemo.MEMO_HIT, false);
+        }
+    }
+
     /**
      * 处理当前集成结果
      *
@@ -645,12 +740,12 @@ class IntegrationCommandParams {
      */
     public static void processResult(Exchange exchange) throws Exception {
         Map<String, Object> properties = exchange.getProperties();
-        List<CommandParamIntegration> commandParamIntegrations = ClassCastUtils.castArrayList(exchange.getProperties().get("commandParamIntegrations"), CommandParamIntegration.class);
+        @SuppressWarnings("unchecked")
+        List<CommandParamIntegration> commandParamIntegrations = (List<CommandParamIntegration>) properties.get("commandParamIntegrations");
         Object body = exchange.getIn().getBody();
         if (body instanceof byte[]) {
             body = new String((byte[]) body);
         }
-        String commandJson = (String) properties.get("commandJson");
         Map<String, Object> current = ClassCastUtils.castHashMap(properties.get("currentIntegrateParam"), String.class, Object.class);
         String name = (String) current.get("paramName");
         String protocol = (String) current.get("protocol");
@@ -672,7 +767,9 @@ class IntegrationCommandParams {
         find.setIntegrationComplete(true);
         if (find.isBatchFlag()) {
             exchange.setProperty("batchNamePath", "/" + name);
-            exchange.setProperty("batchIntegrateResult", JsonUtil.writeValueAsList(data, Class.forName(find.getBatchClassName())));
+            // 保留批量结果JSON，拆分时流式逐项解析为批次类型
+            exchange.setProperty("batchIntegrateResult", data);
+            exchange.setProperty(BatchItems.BATCH_ITEM_CLASS, Class.forName(find.getBatchClassName()));
             // 记录需要批量处理的集成
             exchange.getProperties().put("batchIntegrate", commandParamIntegrations.stream()
                     .filter(other -> !other.getIntegrationComplete()).collect(Collectors.toList()));
@@ -680,8 +777,9 @@ class IntegrationCommandParams {
             commandParamIntegrations.stream().filter(other -> !other.getIntegrationComplete())
                     .forEach(other -> other.setIntegrationComplete(true));
         } else {
-            commandJson = JsonUtil.patch(commandJson, "/" + name, data);
-            exchange.getProperties().put("commandJson", commandJson);
+            ObjectNode commandNode = CommandNode.read(properties);
+            JsonUtil.patch(commandNode, "/" + name, JsonUtil.readTree(data));
+            CommandNode.write(properties, commandNode);
         }
         // 更新未集成
         exchange.getProperties().put("commandParamIntegrations", commandParamIntegrations);
@@ -693,14 +791,14 @@ class IntegrationCommandParams {
      * @param unIntegrateParams
      * @return
      */
-    public static Map<String, Object> findExecutable(List<CommandParamIntegration> unIntegrateParams, String commandJson, String logicName) {
+    public static Map<String, Object> findExecutable(List<CommandParamIntegration> unIntegrateParams, JsonNode commandNode, String logicName) {
         Map<String, Object> executableIntegrationInfo = new HashMap<>();
         for (CommandParamIntegration commandParamIntegration : unIntegrateParams) {
             // 优先处理非批量集成
             if (commandParamIntegration.isBatchFlag()) {
                 continue;
             }
-            String body = transformBody(commandJson, commandParamIntegration, executableIntegrationInfo);
+            String body = transformBody(commandNode, commandParamIntegration, executableIntegrationInfo);
             if (null != body) {
                 break;
             }
@@ -708,7 +806,7 @@ class IntegrationCommandParams {
         // 没有可以进行的集成则处理批处理集成
         if (null == executableIntegrationInfo.get("paramName")) {
             unIntegrateParams.stream().filter(CommandParamIntegration::isBatchFlag).findFirst().ifPresent(batchIntegration -> {
-                transformBody(commandJson, batchIntegration, executableIntegrationInfo);
+                transformBody(commandNode, batchIntegration, executableIntegrationInfo);
             });
         }
         if (null != executableIntegrationInfo.get("paramName")) {
@@ -723,13 +821,13 @@ class IntegrationCommandParams {
         throw new RuntimeException("the integration file have error, command need integrate, but the param can not use... ");
     }
 
-    private static String transformBody(String commandJson, CommandParamIntegration commandParamIntegration, Map<String, Object> map) {
-        String protocolContent = null;
+    private static String transformBody(JsonNode commandNode, CommandParamIntegration commandParamIntegration, Map<String, Object> map) {
+        JsonSchema requestSchema = null;
         if (StringUtils.hasText(commandParamIntegration.getProtocol())) {
-            protocolContent = IntegrationsInfo.get(commandParamIntegration.getProtocol()).getProtocolContent();
+            requestSchema = IntegrationsInfo.get(commandParamIntegration.getProtocol()).getRequestSchema();
         }
         // 获取当前查询的每个参数
-        String body = JsonUtil.transAndCheck(commandParamIntegration.getRequestMapping(), commandJson, protocolContent);
+        String body = JsonUtil.transAndValidate(commandParamIntegration.getRequestMapping(), commandNode, requestSchema);
         if (body != null) {
             map.put("paramName", commandParamIntegration.getParamName());
             map.put("protocol", commandParamIntegration.getProtocol());
@@ -738,3 +836,104 @@ class IntegrationCommandParams {
         return body;
     }
 }
+
+/**
+ * 批量资源库预取，批处理前汇总全部批次项的资源库集成标识，一次findAllById载入，批次项集成时优先从中读取
+ * 只预取仅被一个批次项使用的标识，被多个批次项使用的标识仍逐项查询，保证后续项读取到前一项保存后的实体
+ */
+@Slf4j
+class BatchRepositoryPrefetch {
+
+    /**
+     * 交换中预取结果的属性名，标识json与实体json节点，标识已预取但实体不存在时节点为NullNode
+     */
+    static final String BATCH_PREFETCH = "batchPrefetch";
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void prefetch(Exchange exchange) throws Exception {
+        Map<String, Object> properties = exchange.getProperties();
+        properties.remove(BATCH_PREFETCH);
+        List<CommandParamIntegration> repositoryIntegrations = ClassCastUtils.castArrayList(
+                        properties.get("batchIntegrate"), CommandParamIntegration.class)
+                .stream().filter(integration -> "".equals(integration.getProtocol())).collect(Collectors.toList());
+        Iterator<Object> items = BatchItems.iterate(properties);
+        if (repositoryIntegrations.isEmpty() || !items.hasNext()) {
+            return;
+        }
+        Class<?> identityClass = Class.forName((String) properties.get("embeddedIdentityFullClassName"));
+        String batchNamePath = (String) properties.get("batchNamePath");
+        // 只复制一次命令，逐项替换批次属性计算集成参数，依赖其他集成结果而无法计算的留给批次项逐个查询
+        ObjectNode commandNode = CommandNode.readCopy(properties);
+        Map<String, Object> identities = new LinkedHashMap<>();
+        Set<String> repeated = new HashSet<>();
+        int count = 0;
+        while (items.hasNext()) {
+            count++;
+            JsonUtil.patch(commandNode, batchNamePath, JsonUtil.readTree(items.next()));
+            Map<String, Object> itemIdentities = new HashMap<>();
+            for (CommandParamIntegration integration : repositoryIntegrations) {
+                String body = JsonUtil.transAndCheck(integration.getRequestMapping(), commandNode, null);
+                if (null == body) {
+                    continue;
+                }
+                Object identity = JsonUtil.writeTreeAsObject(JsonUtil.readTree(body).path("id"), identityClass);
+                itemIdentities.putIfAbsent(JsonUtil.writeValueAsString(identity), identity);
+            }
+            itemIdentities.forEach((key, identity) -> {
+                if (null != identities.putIfAbsent(key, identity)) {
+                    repeated.add(key);
+                }
+            });
+        }
+        // 多个批次项使用同一标识时，后续项需要读取前一项保存后的状态与版本，不预取而逐项查询
+        identities.keySet().removeAll(repeated);
+        if (identities.isEmpty()) {
+            return;
+        }
+        MicrcJpaRepository repository = exchange.getContext().getRegistry()
+                .lookupByNameAndType((String) properties.get("repositoryName"), MicrcJpaRepository.class);
+        List<Object> entities = repository.findAllById(new ArrayList<>(identities.values()));
+        Map<String, JsonNode> prefetched = new HashMap<>();
+        identities.keySet().forEach(key -> prefetched.put(key, NullNode.getInstance()));
+        for (Object entity : entities) {
+            JsonNode entityNode = JsonUtil.readTree(entity);
+            Object identity = JsonUtil.writeTreeAsObject(entityNode.path("identity"), identityClass);
+            prefetched.put(JsonUtil.writeValueAsString(identity), entityNode);
+        }
+        log.info("业务批量预取{}：{}项，{}个标识，命中{}个，重复标识{}个未预取",
+                properties.get("logicName"), count, identities.size(), entities.size(), repeated.size());
+        properties.put(BATCH_PREFETCH, prefetched);
+    }
+
+    public static boolean prefetched(Object identity, Exchange exchange) {
+        Map<String, JsonNode> prefetched = prefetchedMap(exchange);
+        return null != prefetched && prefetched.containsKey(JsonUtil.writeValueAsString(identity));
+    }
+
+    public static Optional<JsonNode> fetch(Object identity, Exchange exchange) {
+        JsonNode entityNode = prefetchedMap(exchange).get(JsonUtil.writeValueAsString(identity));
+        return entityNode.isNull() ? Optional.empty() : Optional.of(entityNode);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, JsonNode> prefetchedMap(Exchange exchange) {
+        return (Map<String, JsonNode>) exchange.getProperty(BATCH_PREFETCH);
+    }
+}
+
+/**
+ * 批量集成结果，以JSON保存在交换属性中，迭代时流式逐项解析为批次类型，内存占用与单项大小相关而与批次大小无关
+ */
+class BatchItems {
+
+    /**
+     * 交换中批次项类型的属性名
+     */
+    static final String BATCH_ITEM_CLASS = "batchItemClass";
+
+    @SuppressWarnings("unchecked")
+    public static Iterator<Object> iterate(Map<String, Object> properties) {
+        Class<Object> itemClass = (Class<Object>) properties.get(BATCH_ITEM_CLASS);
+        return JsonUtil.readArrayElements((String) properties.get("batchIntegrateResult"), itemClass);
+    }
+}
@@ -2,8 +2,10 @@ package io.micrc.core.application.businesses;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrc.core.AbstractRouteTemplateParamDefinition;
+import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration.ApplicationBusinessesServiceDefinition;
 import org.apache.camel.spi.RouteTemplateParameterSource;
 
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -18,6 +20,11 @@ import java.util.Set;
 public class ApplicationBusinessesServiceRouteTemplateParameterSource implements RouteTemplateParameterSource {
     private final Map<String, AbstractRouteTemplateParamDefinition> parameters = new LinkedHashMap<>();
 
+    /**
+     * 业务服务名与执行计划，添加参数时构造
+     */
+    private final Map<String, BusinessesServicePlan> plans = new HashMap<>();
+
     @SuppressWarnings("unchecked")
     @Override
     public Map<String, Object> parameters(String routeId) {
@@ -31,9 +38,27 @@ public class ApplicationBusinessesServiceRouteTemplateParameterSource implements
 
     public void addParameter(String routeId, AbstractRouteTemplateParamDefinition definition) {
         parameters.put(routeId, definition);
+        if (definition instanceof ApplicationBusinessesServiceDefinition) {
+            ApplicationBusinessesServiceDefinition businessesServiceDefinition = (ApplicationBusinessesServiceDefinition) definition;
+            plans.put(businessesServiceDefinition.getServiceName(), BusinessesServicePlan.of(businessesServiceDefinition));
+        }
     }
 
     public AbstractRouteTemplateParamDefinition parameter(String routeId) {
         return parameters.get(routeId);
     }
+
+    /**
+     * 业务服务执行计划
+     *
+     * @param serviceName   业务服务名
+     * @return              执行计划
+     */
+    public BusinessesServicePlan plan(String serviceName) {
+        BusinessesServicePlan plan = plans.get(serviceName);
+        if (null == plan) {
+            throw new IllegalStateException("the businesses service " + serviceName + " not have execution plan");
+        }
+        return plan;
+    }
 }
@@ -0,0 +1,145 @@
+package io.micrc.core.application.businesses;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrc.core.rpc.ErrorInfo;
+import io.micrc.core.rpc.Result;
+import io.micrc.lib.ExecutorUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.Environment;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 业务服务异步执行
+ * 提交后立即返回执行凭证，在有界线程池中调用业务服务，线程池与等待队列满时拒绝提交。
+ * 凭证在完成后保留一段时间供查询，调用方也可以通过凭证的future注册完成回调
+ *
+ * @author weiguan
+ * @date 2024-07-17 14:20
+ * @since 0.0.1
+ */
+@Slf4j
+public class BusinessesAsyncExecution implements MeterBinder {
+
+    /**
+     * 命令适配器请求中标识异步执行的请求头
+     */
+    public static final String ASYNC_HEADER = "X-Micrc-Async";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private ThreadPoolExecutor executor;
+
+    private Cache<String, BusinessesTicket> tickets;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // 虚拟线程模式下阻塞在集成、逻辑与存储上的执行不占用平台线程，默认线程数放大
+        boolean virtual = ExecutorUtil.isVirtual(environment.getProperty(ExecutorUtil.EXECUTION_MODE));
+        int poolSize = environment.getProperty("micrc.businesses.async.pool-size", Integer.class, virtual ? 1000 : 8);
+        int queueCapacity = environment.getProperty("micrc.businesses.async.queue-capacity", Integer.class, 256);
+        long ticketTtl = environment.getProperty("micrc.businesses.async.ticket-ttl", Long.class, 600000L);
+        executor = ExecutorUtil.newBoundedExecutor("businesses-async-", poolSize, queueCapacity, virtual);
+        tickets = Caffeine.newBuilder().expireAfterWrite(ticketTtl, TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * 异步执行业务服务
+     *
+     * @param serviceName   业务服务bean名称
+     * @param command       命令
+     * @return              执行凭证
+     */
+    @SuppressWarnings("unchecked")
+    public BusinessesTicket submit(String serviceName, Object command) {
+        ApplicationBusinessesService<Object> service = applicationContext.getBean(serviceName, ApplicationBusinessesService.class);
+        BusinessesTicket ticket = new BusinessesTicket(UUID.randomUUID().toString(), serviceName);
+        tickets.put(ticket.getTicketId(), ticket);
+        try {
+            executor.execute(() -> {
+                ticket.running();
+                try {
+                    service.execute(command);
+                    ticket.complete(command, null);
+                } catch (Throwable e) {
+                    log.error("业务异步执行失败{}：{}", serviceName, ticket.getTicketId(), e);
+                    ticket.complete(command, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            tickets.invalidate(ticket.getTicketId());
+            rejected.incrementAndGet();
+            throw new IllegalStateException("the businesses async executor is full, please retry later. ", e);
+        }
+        log.info("业务异步提交{}：{}", serviceName, ticket.getTicketId());
+        return ticket;
+    }
+
+    /**
+     * 查询执行凭证，过期或不存在时返回null
+     *
+     * @param ticketId  凭证ID
+     * @return          执行凭证
+     */
+    public BusinessesTicket ticket(String ticketId) {
+        return tickets.getIfPresent(ticketId);
+    }
+
+    /**
+     * 执行凭证查询结果，不存在时返回404
+     *
+     * @param ticketId  凭证ID
+     * @return          统一返回
+     */
+    public Result<BusinessesTicket> ticketResult(String ticketId) {
+        BusinessesTicket ticket = null == ticketId ? null : ticket(ticketId);
+        ErrorInfo errorInfo = null;
+        if (null == ticket) {
+            errorInfo = new ErrorInfo();
+            errorInfo.setErrorCode("404");
+            errorInfo.setErrorMessage("the ticket " + ticketId + " not exists or expired. ");
+        }
+        return new Result<BusinessesTicket>().result(errorInfo, ticket);
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        Gauge.builder("micrc.businesses.async.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("业务异步执行中的数量")
+                .register(registry);
+        Gauge.builder("micrc.businesses.async.queued", executor, e -> e.getQueue().size())
+                .description("业务异步等待执行的数量")
+                .register(registry);
+        FunctionCounter.builder("micrc.businesses.async.completed", executor, ThreadPoolExecutor::getCompletedTaskCount)
+                .description("业务异步已完成的数量")
+                .register(registry);
+        FunctionCounter.builder("micrc.businesses.async.rejected", rejected, AtomicLong::get)
+                .description("业务异步被拒绝的提交数量")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
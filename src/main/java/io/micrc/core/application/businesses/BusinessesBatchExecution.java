@@ -0,0 +1,222 @@
+package io.micrc.core.application.businesses;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrc.core.rpc.ErrorInfo;
+import io.micrc.lib.ExecutorUtil;
+import io.micrc.lib.JsonUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.EndpointInject;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 业务服务批量分块执行
+ * 批次项按块在独立事务中提交，块间按执行计划的并行度并行执行。块内任一项失败或块写出、提交失败时回滚该块并逐项重试，
+ * 失败项(含该项的写出、提交失败)的错误按批次项序号汇总回命令的error
+ *
+ * @author weiguan
+ * @date 2024-07-15 16:40
+ * @since 0.0.1
+ */
+@Slf4j
+public class BusinessesBatchExecution {
+
+    private static final String BATCH_ITEM_EXECUTE = "direct://executor-data-batch-item-execute";
+
+    @EndpointInject
+    private ProducerTemplate producerTemplate;
+
+    @Autowired
+    private JpaTransactionManager transactionManager;
+
+    @Autowired
+    private Environment environment;
+
+    private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+
+    public void execute(Exchange exchange) throws Exception {
+        Map<String, Object> properties = exchange.getProperties();
+        BusinessesServicePlan plan = BusinessesServicePlan.read(properties);
+        // 批次项流式读取，逐块组装提交，执行中的块不超过并行度，内存占用以块为界
+        Iterator<Object> items = BatchItems.iterate(properties);
+        int chunkSize = plan.getBatchChunkSize();
+        int parallelism = plan.getBatchParallelism();
+        Map<Integer, ErrorInfo> itemErrors = new TreeMap<>();
+        Deque<Future<Map<Integer, ErrorInfo>>> running = new ArrayDeque<>();
+        int itemCount = 0;
+        int chunkCount = 0;
+        while (items.hasNext()) {
+            List<Object> chunk = new ArrayList<>(chunkSize);
+            int start = itemCount;
+            while (items.hasNext() && chunk.size() < chunkSize) {
+                chunk.add(items.next());
+                itemCount++;
+            }
+            chunkCount++;
+            if (parallelism <= 1 || (chunkCount == 1 && !items.hasNext())) {
+                itemErrors.putAll(executeChunk(exchange, chunk, start));
+                continue;
+            }
+            if (running.size() >= parallelism) {
+                itemErrors.putAll(await(running.poll()));
+            }
+            ExecutorService executor = executors.computeIfAbsent(plan.getServiceName(),
+                    serviceName -> createExecutor(serviceName, parallelism));
+            running.add(executor.submit(() -> executeChunk(exchange, chunk, start)));
+        }
+        while (!running.isEmpty()) {
+            itemErrors.putAll(await(running.poll()));
+        }
+        if (0 == itemCount) {
+            return;
+        }
+        log.info("业务批量执行{}：{}项，{}块，失败{}项", properties.get("logicName"), itemCount, chunkCount, itemErrors.size());
+        if (!itemErrors.isEmpty()) {
+            ErrorInfo errorInfo = new ErrorInfo();
+            errorInfo.setErrorCode(itemErrors.values().iterator().next().getErrorCode());
+            errorInfo.setErrorMessage("batch items fail: " + itemErrors.size() + "/" + itemCount);
+            errorInfo.setItemErrors(itemErrors);
+            ObjectNode commandNode = CommandNode.read(properties);
+            JsonUtil.patch(commandNode, "/error", JsonUtil.readTree(errorInfo));
+            CommandNode.write(properties, commandNode);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ExecutorService::shutdown);
+    }
+
+    private Map<Integer, ErrorInfo> await(Future<Map<Integer, ErrorInfo>> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new BusinessesBatchExecutionException("batch chunk execute fail: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 在一个事务中执行一块批次项，失败时回滚并逐项重试，错误以批次项在整个批次中的序号为键
+     * 提交前写出持久化上下文，写出或提交失败(唯一键、乐观锁版本冲突等)与批次项失败同样按块回滚后逐项重试
+     */
+    private Map<Integer, ErrorInfo> executeChunk(Exchange exchange, List<Object> chunk, int offset) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Map<Integer, ErrorInfo> chunkErrors = new HashMap<>();
+        if (chunk.size() == 1) {
+            ErrorInfo error = executeItemInTransaction(transactionTemplate, exchange, chunk.get(0));
+            if (null != error) {
+                chunkErrors.put(offset, error);
+            }
+            return chunkErrors;
+        }
+        boolean failed;
+        try {
+            failed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                for (Object item : chunk) {
+                    if (null != executeItem(exchange, item)) {
+                        status.setRollbackOnly();
+                        return true;
+                    }
+                }
+                flush();
+                return false;
+            }));
+        } catch (RuntimeException e) {
+            log.warn("业务批量块提交失败，逐项重试：{}", e.getMessage());
+            failed = true;
+        }
+        if (!failed) {
+            return chunkErrors;
+        }
+        // 块已回滚，逐项独立事务重试，隔离失败项
+        for (int index = 0; index < chunk.size(); index++) {
+            ErrorInfo error = executeItemInTransaction(transactionTemplate, exchange, chunk.get(index));
+            if (null != error) {
+                chunkErrors.put(offset + index, error);
+            }
+        }
+        return chunkErrors;
+    }
+
+    /**
+     * 在独立事务中执行单个批次项，提交前写出，写出或提交失败计为该项的错误
+     */
+    private ErrorInfo executeItemInTransaction(TransactionTemplate transactionTemplate, Exchange exchange, Object item) {
+        try {
+            return transactionTemplate.execute(status -> {
+                ErrorInfo itemError = executeItem(exchange, item);
+                if (null != itemError) {
+                    status.setRollbackOnly();
+                    return itemError;
+                }
+                flush();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            return errorInfo(e);
+        }
+    }
+
+    /**
+     * 写出当前事务的持久化上下文，使约束与版本冲突在提交前、在所属批次项的事务中抛出
+     */
+    private void flush() {
+        EntityManager entityManager =
+                EntityManagerFactoryUtils.getTransactionalEntityManager(transactionManager.getEntityManagerFactory());
+        if (null != entityManager) {
+            entityManager.flush();
+        }
+    }
+
+    /**
+     * 以父交换副本执行单个批次项，命令对象独立，返回失败项的错误
+     */
+    private ErrorInfo executeItem(Exchange exchange, Object item) {
+        Exchange itemExchange = exchange.copy();
+        Object command = exchange.getProperty("command");
+        itemExchange.setProperty("command", BeanUtils.instantiateClass(command.getClass()));
+        itemExchange.getIn().setBody(item);
+        producerTemplate.send(BATCH_ITEM_EXECUTE, itemExchange);
+        Throwable throwable = null != itemExchange.getException()
+                ? itemExchange.getException()
+                : itemExchange.getProperty(Exchange.EXCEPTION_CAUGHT, Throwable.class);
+        if (null == throwable) {
+            return null;
+        }
+        JsonNode error = CommandNode.read(itemExchange.getProperties()).path("error");
+        if (error.isObject() && error.hasNonNull("errorCode")) {
+            return JsonUtil.writeTreeAsObject(error, ErrorInfo.class);
+        }
+        return errorInfo(throwable);
+    }
+
+    private static ErrorInfo errorInfo(Throwable throwable) {
+        ErrorInfo errorInfo = new ErrorInfo();
+        errorInfo.setErrorCode(ErrorInfo.BUSINESS_ERROR_CODE);
+        errorInfo.setErrorMessage(throwable.getMessage());
+        return errorInfo;
+    }
+
+    /**
+     * 同一业务服务的批量执行共享线程池，单次执行在途的块不超过并行度，并发的多次执行超出队列时由提交线程执行该块
+     */
+    private ExecutorService createExecutor(String serviceName, int parallelism) {
+        return ExecutorUtil.newBoundedExecutor("batch-" + serviceName + "-", parallelism, parallelism,
+                ExecutorUtil.isVirtual(environment.getProperty(ExecutorUtil.EXECUTION_MODE)),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,14 @@
+package io.micrc.core.application.businesses;
+
+/**
+ * 业务批量分块执行异常，批次块执行本身失败(而非批次项业务失败)时抛出，按业务错误处理
+ *
+ * @author weiguan
+ * @date 2024-07-15 16:40
+ * @since 0.0.1
+ */
+public class BusinessesBatchExecutionException extends RuntimeException {
+    public BusinessesBatchExecutionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
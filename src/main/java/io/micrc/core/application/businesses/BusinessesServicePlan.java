@@ -0,0 +1,245 @@
+package io.micrc.core.application.businesses;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration.ApplicationBusinessesServiceDefinition;
+import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration.CommandParamIntegration;
+import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration.LogicIntegration;
+import io.micrc.lib.JsonUtil;
+import io.micrc.lib.StringUtil;
+import io.micrc.lib.TimeReplaceUtil;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 业务服务执行计划，启动时由路由模版参数一次性解析得到，交换中只引用不再重复解析
+ * 计划本身不可变，集成参数这类在执行中会被修改的状态，每次执行时由计划复制得到
+ *
+ * @author weiguan
+ * @date 2024-07-15 10:12
+ * @since 0.0.1
+ */
+@Getter
+public final class BusinessesServicePlan {
+
+    /**
+     * 交换中执行计划的属性名
+     */
+    public static final String SERVICE_PLAN = "servicePlan";
+
+    /**
+     * 业务服务名
+     */
+    private final String serviceName;
+
+    /**
+     * 逻辑出入参映射
+     */
+    private final LogicIntegration logicIntegration;
+
+    /**
+     * 按执行顺序排列的集成参数，只读模版
+     */
+    private final List<CommandParamIntegration> commandParamIntegrations;
+
+    /**
+     * 时间路径，已按"/"拆分
+     */
+    private final List<String[]> timePaths;
+
+    /**
+     * 已编译的时间路径，逻辑出入参时间替换使用
+     */
+    private final TimeReplaceUtil.TimePaths compiledTimePaths;
+
+    /**
+     * 聚合类型，存在级联字段时解析
+     */
+    private final Class<?> aggregationClass;
+
+    /**
+     * 级联字段，字段名与已解析的setter和绑定类型
+     */
+    private final Map<String, CascadeField> cascadeFields;
+
+    /**
+     * 批量执行时每个事务提交的批次项数量
+     */
+    private final int batchChunkSize;
+
+    /**
+     * 批量执行时并行执行的批次块数量
+     */
+    private final int batchParallelism;
+
+    private BusinessesServicePlan(String serviceName, LogicIntegration logicIntegration,
+                                  List<CommandParamIntegration> commandParamIntegrations, List<String[]> timePaths,
+                                  Class<?> aggregationClass, Map<String, CascadeField> cascadeFields,
+                                  int batchChunkSize, int batchParallelism) {
+        this.serviceName = serviceName;
+        this.logicIntegration = logicIntegration;
+        this.commandParamIntegrations = commandParamIntegrations;
+        this.timePaths = timePaths;
+        this.compiledTimePaths = TimeReplaceUtil.compile(timePaths);
+        this.aggregationClass = aggregationClass;
+        this.cascadeFields = cascadeFields;
+        this.batchChunkSize = batchChunkSize;
+        this.batchParallelism = batchParallelism;
+    }
+
+    /**
+     * 由业务服务路由参数构造执行计划
+     *
+     * @param definition    业务服务路由参数
+     * @return              执行计划
+     */
+    @SuppressWarnings("unchecked")
+    public static BusinessesServicePlan of(ApplicationBusinessesServiceDefinition definition) {
+        LogicIntegration decoded = JsonUtil.writeValueAsObject(
+                new String(Base64.getDecoder().decode(definition.getLogicIntegrationJson())), LogicIntegration.class);
+        LogicIntegration logicIntegration = LogicIntegration.builder()
+                .paramMappingMap(Collections.unmodifiableMap(new LinkedHashMap<>(decoded.getParamMappingMap())))
+                .resultMappingMap(Collections.unmodifiableMap(new LinkedHashMap<>(decoded.getResultMappingMap())))
+                .build();
+        List<CommandParamIntegration> commandParamIntegrations = List.copyOf(JsonUtil.writeValueAsList(
+                definition.getCommandParamIntegrationsJson(), CommandParamIntegration.class));
+        List<String[]> timePaths = JsonUtil.writeValueAsList(definition.getTimePathsJson(), String.class)
+                .stream().map(path -> path.split("/")).collect(Collectors.toUnmodifiableList());
+        Map<String, String> fieldMap = JsonUtil.writeValueAsObject(definition.getFieldMap(), Map.class);
+        Class<?> aggregationClass = null;
+        Map<String, CascadeField> cascadeFields = new LinkedHashMap<>();
+        if (!fieldMap.isEmpty()) {
+            try {
+                aggregationClass = Class.forName(definition.getAggregationPath());
+                for (Map.Entry<String, String> field : fieldMap.entrySet()) {
+                    cascadeFields.put(field.getKey(),
+                            CascadeField.of(aggregationClass, field.getKey(), Class.forName(field.getValue())));
+                }
+            } catch (ClassNotFoundException | IllegalAccessException e) {
+                throw new IllegalStateException("the cascade fields of " + definition.getAggregationPath()
+                        + " can not resolve, please check the service " + definition.getServiceName(), e);
+            }
+        }
+        return new BusinessesServicePlan(definition.getServiceName(), logicIntegration, commandParamIntegrations,
+                timePaths, aggregationClass, Collections.unmodifiableMap(cascadeFields),
+                positive(definition.getBatchChunkSize()), positive(definition.getBatchParallelism()));
+    }
+
+    /**
+     * 读取交换中的执行计划
+     *
+     * @param properties    exchange properties
+     * @return              执行计划
+     */
+    public static BusinessesServicePlan read(Map<String, Object> properties) {
+        return (BusinessesServicePlan) properties.get(SERVICE_PLAN);
+    }
+
+    /**
+     * 本次执行使用的集成参数，执行中会标记集成完成，因此每次复制
+     *
+     * @return  集成参数副本
+     */
+    public List<CommandParamIntegration> newCommandParamIntegrations() {
+        return commandParamIntegrations.stream()
+                .map(integration -> integration.toBuilder().build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 是否存在级联字段
+     *
+     * @return  存在级联
+     */
+    public boolean hasCascade() {
+        return !cascadeFields.isEmpty();
+    }
+
+    /**
+     * 批量执行是否分块提交或并行，否则逐项独立事务顺序执行
+     *
+     * @return  分块执行
+     */
+    public boolean isBatchChunked() {
+        return batchChunkSize > 1 || batchParallelism > 1;
+    }
+
+    private static int positive(String value) {
+        if (null == value || value.isBlank()) {
+            return 1;
+        }
+        return Math.max(1, Integer.parseInt(value.trim()));
+    }
+
+    /**
+     * 级联字段，setter句柄与绑定类型在构造计划时解析，执行时由命令树直接绑定到实体
+     */
+    @Getter
+    public static final class CascadeField {
+
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final String name;
+
+        /**
+         * setter参数类型，一对多为集合类型
+         */
+        private final JavaType type;
+
+        private final MethodHandle setter;
+
+        private CascadeField(String name, JavaType type, MethodHandle setter) {
+            this.name = name;
+            this.type = type;
+            this.setter = setter;
+        }
+
+        /**
+         * 解析级联字段setter，setter参数类型的元素类型无法由泛型解析时(原始集合类型或非泛型参数)，以扫描得到的实体字段元素类型为准
+         *
+         * @param entityClass   实体类型
+         * @param name          字段名
+         * @param elementClass  实体字段的元素类型
+         * @return              cascade field
+         */
+        @SuppressWarnings("unchecked")
+        static CascadeField of(Class<?> entityClass, String name, Class<?> elementClass) throws IllegalAccessException {
+            String property = StringUtil.upperStringFirst(name);
+            Method[] methods = entityClass.getMethods();
+            Method method = Arrays.stream(methods)
+                    .filter(m -> m.getParameterCount() == 1 && m.getName().equals("set" + property))
+                    .findFirst()
+                    .or(() -> Arrays.stream(methods)
+                            .filter(m -> m.getParameterCount() == 1 && m.getName().startsWith("set") && m.getName().contains(property))
+                            .findFirst())
+                    .orElseThrow(() -> new IllegalStateException("the " + entityClass.getName() + " not have setter of cascade field " + name));
+            JavaType type = JsonUtil.constructType(method.getGenericParameterTypes()[0]);
+            if (Collection.class.isAssignableFrom(type.getRawClass()) && type.getContentType().hasRawClass(Object.class)) {
+                type = TypeFactory.defaultInstance()
+                        .constructCollectionType((Class<? extends Collection<?>>) type.getRawClass(), elementClass);
+            } else if (type.hasRawClass(Object.class)) {
+                type = JsonUtil.constructType(elementClass);
+            }
+            return new CascadeField(name, type, MethodHandles.publicLookup().unreflect(method).asType(SETTER_TYPE));
+        }
+
+        /**
+         * 将命令树中的级联节点绑定到实体，对象节点按集合元素类型绑定
+         *
+         * @param entity    实体
+         * @param node      级联节点
+         */
+        public void bind(Object entity, JsonNode node) throws Throwable {
+            JavaType bindType = node.isObject() && type.isContainerType() ? type.getContentType() : type;
+            Object value = JsonUtil.writeTreeAsObject(node, bindType);
+            setter.invokeExact(entity, value);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.micrc.core.application.businesses;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.micrc.core.rpc.ErrorInfo;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 业务服务异步执行凭证
+ * 提交时立即返回，记录执行状态，完成后持有执行后的命令或失败信息，调用方可通过future注册完成回调
+ *
+ * @author weiguan
+ * @date 2024-07-17 14:20
+ * @since 0.0.1
+ */
+@Getter
+public class BusinessesTicket {
+
+    private final String ticketId;
+
+    private final String serviceName;
+
+    private final long submittedAt;
+
+    private volatile Status status = Status.SUBMITTED;
+
+    private volatile long completedAt;
+
+    /**
+     * 执行后的命令，业务错误记录在命令的error中
+     */
+    private volatile Object command;
+
+    private volatile ErrorInfo error;
+
+    @JsonIgnore
+    private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+    BusinessesTicket(String ticketId, String serviceName) {
+        this.ticketId = ticketId;
+        this.serviceName = serviceName;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    void running() {
+        this.status = Status.RUNNING;
+    }
+
+    void complete(Object command, Throwable throwable) {
+        this.command = command;
+        this.completedAt = System.currentTimeMillis();
+        if (null == throwable && command instanceof MicrcCommand) {
+            ErrorInfo commandError = ((MicrcCommand) command).getError();
+            if (null != commandError && null != commandError.getErrorCode()) {
+                this.error = commandError;
+            }
+        }
+        if (null != throwable) {
+            ErrorInfo errorInfo = new ErrorInfo();
+            errorInfo.setErrorCode(ErrorInfo.BUSINESS_ERROR_CODE);
+            errorInfo.setErrorMessage(throwable.getMessage());
+            this.error = errorInfo;
+        }
+        this.status = null == this.error ? Status.SUCCEEDED : Status.FAILED;
+        if (null == throwable) {
+            future.complete(command);
+        } else {
+            future.completeExceptionally(throwable);
+        }
+    }
+
+    public boolean isDone() {
+        return Status.SUCCEEDED.equals(status) || Status.FAILED.equals(status);
+    }
+
+    public enum Status {
+        SUBMITTED, RUNNING, SUCCEEDED, FAILED
+    }
+}
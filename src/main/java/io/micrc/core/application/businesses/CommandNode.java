@@ -0,0 +1,123 @@
+package io.micrc.core.application.businesses;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrc.lib.JsonUtil;
+import org.apache.camel.ExchangeProperties;
+
+import java.util.Map;
+
+/**
+ * 业务服务命令访问器
+ * 字符串模式下命令以commandJson字符串存放于交换属性中，每个阶段解析一次、回写一次
+ * 树模式(micrc.businesses.command-tree=true)下命令以单一可变ObjectNode存放于commandNode属性中，
+ * 各阶段原地修改，仅在路由边界(请求、结果、逻辑调用、事件存储)序列化
+ *
+ * @author weiguan
+ * @date 2024-07-02 10:21
+ * @since 0.0.1
+ */
+public final class CommandNode {
+
+    public static final String COMMAND_TREE = "commandTree";
+
+    public static final String COMMAND_NODE = "commandNode";
+
+    public static final String COMMAND_JSON = "commandJson";
+
+    private CommandNode() {
+    }
+
+    public static boolean isTree(Map<String, Object> properties) {
+        return Boolean.parseBoolean(String.valueOf(properties.get(COMMAND_TREE)));
+    }
+
+    /**
+     * 读取命令，树模式下返回交换中的同一节点
+     *
+     * @param properties    exchange properties
+     * @return              command node
+     */
+    public static ObjectNode read(Map<String, Object> properties) {
+        if (isTree(properties)) {
+            return (ObjectNode) properties.get(COMMAND_NODE);
+        }
+        return (ObjectNode) JsonUtil.readTree(properties.get(COMMAND_JSON));
+    }
+
+    /**
+     * 读取命令副本，批量拆分的子交换共享父交换的属性值，树模式下需隔离各批次的修改
+     *
+     * @param properties    exchange properties
+     * @return              command node
+     */
+    public static ObjectNode readCopy(Map<String, Object> properties) {
+        if (isTree(properties)) {
+            return ((ObjectNode) properties.get(COMMAND_NODE)).deepCopy();
+        }
+        return read(properties);
+    }
+
+    /**
+     * 回写命令
+     *
+     * @param properties    exchange properties
+     * @param commandNode   command node
+     */
+    public static void write(Map<String, Object> properties, ObjectNode commandNode) {
+        if (isTree(properties)) {
+            properties.put(COMMAND_NODE, commandNode);
+            return;
+        }
+        properties.put(COMMAND_JSON, JsonUtil.writeValueAsStringRetainNull(commandNode));
+    }
+
+    /**
+     * 路由边界处的命令json
+     *
+     * @param properties    exchange properties
+     * @return              command json
+     */
+    public static String json(@ExchangeProperties Map<String, Object> properties) {
+        if (isTree(properties)) {
+            return JsonUtil.writeValueAsStringRetainNull(properties.get(COMMAND_NODE));
+        }
+        return (String) properties.get(COMMAND_JSON);
+    }
+
+    /**
+     * 指定路径附加值后的命令json，命令本身不变
+     *
+     * @param properties    exchange properties
+     * @param path          path
+     * @param value         value
+     * @return              command json
+     */
+    public static String jsonWith(Map<String, Object> properties, String path, JsonNode value) {
+        ObjectNode commandNode = read(properties);
+        JsonNode origin = commandNode.at(path);
+        JsonUtil.add(commandNode, path, value);
+        String json = JsonUtil.writeValueAsStringRetainNull(commandNode);
+        if (origin.isMissingNode()) {
+            ((ObjectNode) commandNode.at(path.substring(0, path.lastIndexOf("/")))).remove(path.substring(path.lastIndexOf("/") + 1));
+        } else {
+            JsonUtil.add(commandNode, path, origin);
+        }
+        return json;
+    }
+
+    /**
+     * 命令转换为目标对象
+     *
+     * @param properties    exchange properties
+     * @param targetClass   target class
+     * @param <T>           target type
+     * @return              target
+     */
+    public static <T> T toObject(Map<String, Object> properties, Class<T> targetClass) {
+        if (isTree(properties)) {
+            return JsonUtil.writeTreeAsObject((JsonNode) properties.get(COMMAND_NODE), targetClass);
+        }
+        return JsonUtil.writeValueAsObject((String) properties.get(COMMAND_JSON), targetClass);
+    }
+}
@@ -2,6 +2,8 @@ package io.micrc.core.application.businesses.springboot;
 
 import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration;
 import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteTemplateParameterSource;
+import io.micrc.core.application.businesses.BusinessesAsyncExecution;
+import io.micrc.core.application.businesses.BusinessesBatchExecution;
 import io.micrc.core.application.businesses.BusinessesServiceRouterExecution;
 import org.apache.camel.CamelContext;
 import org.apache.camel.component.bean.BeanComponent;
@@ -23,7 +25,12 @@ import org.springframework.orm.jpa.JpaTransactionManager;
  * @since 0.0.1
  */
 @Configuration
-@Import({ApplicationBusinessesServiceRouteConfiguration.class, BusinessesServiceRouterExecution.class})
+@Import({
+        ApplicationBusinessesServiceRouteConfiguration.class,
+        BusinessesServiceRouterExecution.class,
+        BusinessesBatchExecution.class,
+        BusinessesAsyncExecution.class
+})
 public class BusinessesServiceAutoConfiguration {
 
     /**
@@ -2,6 +2,7 @@ package io.micrc.core.application.businesses.springboot;
 
 import io.micrc.core.annotations.application.MicrcTime;
 import io.micrc.core.annotations.application.TimeParam;
+import io.micrc.core._camel.jit.JITDMNService;
 import io.micrc.core.annotations.application.businesses.*;
 import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration;
 import io.micrc.core.application.businesses.ApplicationBusinessesServiceRouteConfiguration.ApplicationBusinessesServiceDefinition;
@@ -20,10 +21,12 @@ import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
 import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.context.EnvironmentAware;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
 import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
 import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.Environment;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.StandardAnnotationMetadata;
@@ -47,10 +50,12 @@ import java.util.stream.Collectors;
  * @since 0.0.1
  */
 @Component
-public class ClassPathBusinessesServiceScannerRegistrar implements ImportBeanDefinitionRegistrar, ResourceLoaderAware {
+public class ClassPathBusinessesServiceScannerRegistrar implements ImportBeanDefinitionRegistrar, ResourceLoaderAware, EnvironmentAware {
 
     private ResourceLoader resourceLoader;
 
+    private Environment environment;
+
     @SuppressWarnings("unchecked")
     @Override
     public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata,
@@ -73,7 +78,7 @@ public class ClassPathBusinessesServiceScannerRegistrar implements ImportBeanDef
 
         // application business service scanner
         ApplicationBusinessesServiceScanner applicationBusinessesServiceScanner =
-                new ApplicationBusinessesServiceScanner(registry, source);
+                new ApplicationBusinessesServiceScanner(registry, source, environment);
         applicationBusinessesServiceScanner.setResourceLoader(resourceLoader);
         applicationBusinessesServiceScanner.doScan(basePackages);
 
@@ -92,6 +97,11 @@ public class ClassPathBusinessesServiceScannerRegistrar implements ImportBeanDef
         this.resourceLoader = resourceLoader;
     }
 
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
 }
 
 /**
@@ -105,11 +115,14 @@ public class ClassPathBusinessesServiceScannerRegistrar implements ImportBeanDef
 class ApplicationBusinessesServiceScanner extends ClassPathBeanDefinitionScanner {
     private static final AtomicInteger INDEX = new AtomicInteger();
     private final ApplicationBusinessesServiceRouteTemplateParameterSource sourceDefinition;
+    private final Environment environment;
 
     public ApplicationBusinessesServiceScanner(BeanDefinitionRegistry registry,
-                                               ApplicationBusinessesServiceRouteTemplateParameterSource source) {
+                                               ApplicationBusinessesServiceRouteTemplateParameterSource source,
+                                               Environment environment) {
         super(registry, false);
         this.sourceDefinition = source;
+        this.environment = environment;
     }
 
     @Override
@@ -165,6 +178,14 @@ class ApplicationBusinessesServiceScanner extends ClassPathBeanDefinitionScanner
             // 获取Command身上的执行类型
             LogicType logicType = commandLogic.logicType();
             String logicPath = commandLogic.logicPath();
+            String logicExecutor = environment.getProperty("micrc.businesses.logic-executor", "rest");
+            // 登记DMN文件，服务初始化时预编译
+            if (LogicType.DMN.equals(logicType)) {
+                if ("local".equals(logicExecutor) && (null == logicPath || !logicPath.endsWith(".dmn"))) {
+                    throw new RuntimeException("the " + parameters[0].getType().getSimpleName() + " logicPath must be dmn file when logic executor is local, please check this command");
+                }
+                JITDMNService.registerModelFile(logicPath);
+            }
 
             // 获取明确的时间路径，并查找所有标记MicrcTime的路径
             ArrayList<String> timePaths = new ArrayList<>();
@@ -220,6 +241,13 @@ class ApplicationBusinessesServiceScanner extends ClassPathBeanDefinitionScanner
                 }
             });
             commandParamIntegrations.sort(Comparator.comparing(CommandParamIntegration::getOrder));
+            // 预编译全部映射，映射错误在启动时暴露
+            paramMappingMap.values().forEach(JsonUtil::precompileCheck);
+            resultMappingMap.values().forEach(JsonUtil::precompileTransform);
+            commandParamIntegrations.forEach(integration -> {
+                JsonUtil.precompileCheck(integration.getRequestMapping());
+                JsonUtil.precompileTransform(integration.getResponseMapping());
+            });
             // 获取嵌套标识符全类名
             Class<?> repositoryClass = Class.forName(commandLogic.repositoryFullClassName());
             ParameterizedType genericInterface = (ParameterizedType) (repositoryClass.getGenericInterfaces()[0]);
@@ -248,12 +276,28 @@ class ApplicationBusinessesServiceScanner extends ClassPathBeanDefinitionScanner
                             .commandParamIntegrationsJson(JsonUtil.writeValueAsString(commandParamIntegrations))
                             .timePathsJson(JsonUtil.writeValueAsString(timePaths))
                             .fieldMap(JsonUtil.writeValueAsString(filedMap))
+                            .commandTree(environment.getProperty("micrc.businesses.command-tree", "false"))
+                            .logicExecutor(logicExecutor)
+                            .batchChunkSize(batchProperty(serviceName, "chunk-size"))
+                            .batchParallelism(batchProperty(serviceName, "parallelism"))
                             .build());
         }
         holders.clear();
         return holders;
     }
 
+    /**
+     * 批量执行配置，服务级配置优先于全局配置
+     *
+     * @param serviceName   业务服务名
+     * @param key           配置项
+     * @return              配置值
+     */
+    private String batchProperty(String serviceName, String key) {
+        return environment.getProperty("micrc.businesses.batch.services." + serviceName + "." + key,
+                environment.getProperty("micrc.businesses.batch." + key, "1"));
+    }
+
     private void findMicrcTimeField(Field[] commandFields, ArrayList<String> paths, StringBuilder lastPath, String basePackage) {
         // 获取MicrcTime标记时间
         for (Field field : commandFields) {
@@ -3,6 +3,7 @@ package io.micrc.core.application.derivations;
 import io.micrc.core.AbstractRouteTemplateParamDefinition;
 import io.micrc.core.MicrcRouteBuilder;
 import io.micrc.core.annotations.application.derivations.TechnologyType;
+import io.micrc.core.rpc.IntegrationMemo;
 import io.micrc.lib.ClassCastUtils;
 import io.micrc.lib.FileUtils;
 import io.micrc.lib.JsonUtil;
@@ -75,9 +76,12 @@ public class ApplicationDerivationsServiceRouteConfiguration extends MicrcRouteB
                 .templateParameter("assembler", null, "assembler")
                 .templateParameter("timePathsJson", null, "time path list json")
                 .from("derivations:{{serviceName}}")
+                .setProperty("serviceName", constant("{{serviceName}}"))
                 .setProperty("paramIntegrationsJson", constant("{{paramIntegrationsJson}}"))
                 .setProperty("assembler", constant("{{assembler}}"))
                 .setProperty("timePathsJson", constant("{{timePathsJson}}"))
+                // 请求内集成结果备忘，随交换释放
+                .setProperty(IntegrationMemo.INTEGRATION_MEMO, method(IntegrationMemo.class, "create"))
                 // 1.处理请求
                 .to("direct://handle-request-derivation")
                 // 2.解析时间
@@ -100,8 +104,12 @@ public class ApplicationDerivationsServiceRouteConfiguration extends MicrcRouteB
                 // 得到需要集成的集成参数，todo,封装进动态路由
                 .bean(IntegrationParams.class, "findExecutable")
                 .setProperty("current", body())
+                .bean(IntegrationParams.class, "memoLookup")
                 // 构造发送
                 .choice()
+                .when(exchangeProperty(IntegrationMemo.MEMO_HIT).isEqualTo(true))
+                    // 请求内已集成，使用备忘结果
+                .endChoice()
                 .when(constant("QUERY").isEqualTo(simple("${exchange.properties.get(current).get(type)}")))
                     .bean(IntegrationParams.class, "executeQuery")
                 .endChoice()
@@ -114,6 +122,7 @@ public class ApplicationDerivationsServiceRouteConfiguration extends MicrcRouteB
                     .to("dynamic-executor://execute")
                 .endChoice()
                 .end()
+                .bean(IntegrationMemo.class, "remember")
                   // 处理返回
                 .bean(IntegrationParams.class, "processResult");
 
@@ -199,6 +208,22 @@ class IntegrationParams {
         return "direct://derivations-integration";
     }
 
+    /**
+     * 查找请求内当前集成的备忘结果，只备忘查询，以仓库和查询方法为键
+     * 技术执行(脚本、路由)不保证幂等且可能依赖执行时状态，每次都执行
+     *
+     * @param exchange
+     */
+    public static void memoLookup(Exchange exchange) {
+        Map<String, Object> current = ClassCastUtils.castHashMap(exchange.getProperty("current"), String.class, Object.class);
+        if (ParamIntegration.Type.QUERY.equals(current.get("type"))) {
+            IntegrationMemo.lookup(exchange, "derivations", "query:" + current.get("repositoryPath"),
+                    (String) current.get("method"), current.get("params"));
+            return;
+        }
+        exchange.setProperty(IntegrationMemo.MEMO_HIT, false);
+    }
+
     /**
      * 处理当前集成结果
      *
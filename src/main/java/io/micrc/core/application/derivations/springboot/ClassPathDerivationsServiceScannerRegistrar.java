@@ -1,10 +1,12 @@
 package io.micrc.core.application.derivations.springboot;
 
+import io.micrc.core._camel.jit.JITDMNService;
 import io.micrc.core.annotations.application.TimeParam;
 import io.micrc.core.annotations.application.derivations.DerivationsService;
 import io.micrc.core.annotations.application.derivations.GeneralTechnology;
 import io.micrc.core.annotations.application.derivations.QueryLogic;
 import io.micrc.core.annotations.application.derivations.SpecialTechnology;
+import io.micrc.core.annotations.application.derivations.TechnologyType;
 import io.micrc.core.application.derivations.ApplicationDerivationsServiceRouteConfiguration;
 import io.micrc.core.application.derivations.ApplicationDerivationsServiceRouteConfiguration.ApplicationDerivationsServiceDefinition;
 import io.micrc.core.application.derivations.ApplicationDerivationsServiceRouteTemplateParameterSource;
@@ -157,13 +159,15 @@ class ApplicationDerivationsServiceScanner extends ClassPathBeanDefinitionScanne
             }
             // 获取ApplicationService注解参数
             String serviceName = beanDefinition.getBeanClass().getSimpleName();
+            String assembler = FileUtils.fileReader(derivationsService.assembler(), List.of("jslt"));
+            JsonUtil.precompileTransform(assembler);
             sourceDefinition.addParameter(
                     routeId(serviceName),
                     ApplicationDerivationsServiceDefinition.builder()
                             .templateId(ApplicationDerivationsServiceRouteConfiguration.ROUTE_TMPL_DERIVATIONS_SERVICE)
                             .serviceName(serviceName)
                             .paramIntegrationsJson(JsonUtil.writeValueAsString(paramIntegrations))
-                            .assembler(FileUtils.fileReader(derivationsService.assembler(), List.of("jslt")))
+                            .assembler(assembler)
                             .timePathsJson(JsonUtil.writeValueAsString(timePaths))
                             .build());
         }
@@ -193,6 +197,10 @@ class ApplicationDerivationsServiceScanner extends ClassPathBeanDefinitionScanne
             paramIntegrations.add(new ParamIntegration(t.name(),
                     t.scriptContentPath(), t.scriptFilePath(), varMapping, List.of(mapping),
                     t.order(), ParamIntegration.Type.SPECIAL_TECHNOLOGY, t.technologyType()));
+            // 登记DMN文件，服务初始化时预编译
+            if (TechnologyType.DMN.equals(t.technologyType())) {
+                JITDMNService.registerModelFile(t.scriptFilePath());
+            }
         });
         // 通用技术解析
         Arrays.stream(generalTechnologies).forEach(t -> {
@@ -204,6 +212,11 @@ class ApplicationDerivationsServiceScanner extends ClassPathBeanDefinitionScanne
         });
         // 按照优先级排序
         paramIntegrations.sort(Comparator.comparing(ParamIntegration::getOrder));
+        // 预编译全部映射，映射错误在启动时暴露
+        paramIntegrations.forEach(integration -> {
+            integration.getParamMappings().forEach(JsonUtil::precompileCheck);
+            JsonUtil.precompileTransform(integration.getVariableMapping());
+        });
         return paramIntegrations;
     }
 
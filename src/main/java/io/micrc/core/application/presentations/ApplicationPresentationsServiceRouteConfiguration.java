@@ -1,7 +1,9 @@
 package io.micrc.core.application.presentations;
 
+import com.github.fge.jsonschema.main.JsonSchema;
 import io.micrc.core.AbstractRouteTemplateParamDefinition;
 import io.micrc.core.MicrcRouteBuilder;
+import io.micrc.core.rpc.IntegrationMemo;
 import io.micrc.core.rpc.IntegrationsInfo;
 import io.micrc.lib.ClassCastUtils;
 import io.micrc.lib.JsonUtil;
@@ -59,8 +61,11 @@ public class ApplicationPresentationsServiceRouteConfiguration extends MicrcRout
                 .templateParameter("paramIntegrationsJson", null, "the command integration params")
                 .templateParameter("assembler", null, "assembler")
                 .from("presentations:{{serviceName}}")
+                .setProperty("serviceName", constant("{{serviceName}}"))
                 .setProperty("paramIntegrationsJson", constant("{{paramIntegrationsJson}}"))
                 .setProperty("assembler", constant("{{assembler}}"))
+                // 请求内集成结果备忘，随交换释放
+                .setProperty(IntegrationMemo.INTEGRATION_MEMO, method(IntegrationMemo.class, "create"))
                 // 1.处理请求
                 .to("direct://handle-request-presentation")
                 // 2.动态集成
@@ -79,8 +84,12 @@ public class ApplicationPresentationsServiceRouteConfiguration extends MicrcRout
 
         from("direct://presentations-integration")
                 .setBody(exchangeProperty("current"))
+                .bean(IntegrationParams.class, "memoLookup")
                 // 构造发送
                 .choice()
+                .when(exchangeProperty(IntegrationMemo.MEMO_HIT).isEqualTo(true))
+                    // 请求内已集成，使用备忘结果
+                .endChoice()
                 .when(constant("QUERY").isEqualTo(simple("${exchange.properties.get(current).get(type)}")))
                     .bean(IntegrationParams.class, "executeQuery")
                 .endChoice()
@@ -90,6 +99,7 @@ public class ApplicationPresentationsServiceRouteConfiguration extends MicrcRout
                     .to("req://integration")
                 .endChoice()
                 .end()
+                .bean(IntegrationMemo.class, "remember")
                   // 处理返回
                 .bean(IntegrationParams.class, "processResult");
 
@@ -171,6 +181,21 @@ class IntegrationParams {
         return "direct://presentations-integration";
     }
 
+    /**
+     * 查找请求内当前集成的备忘结果，查询以仓库和查询方法为键，协议集成以协议为键
+     *
+     * @param exchange
+     */
+    public static void memoLookup(Exchange exchange) {
+        Map<String, Object> current = ClassCastUtils.castHashMap(exchange.getProperty("current"), String.class, Object.class);
+        if (ParamIntegration.Type.QUERY.equals(current.get("type"))) {
+            IntegrationMemo.lookup(exchange, "presentations", "query:" + current.get("repositoryPath"),
+                    (String) current.get("method"), current.get("params"));
+        } else {
+            IntegrationMemo.lookup(exchange, "presentations", "req:" + current.get("protocol"), "integration", current.get("params"));
+        }
+    }
+
     /**
      * 处理当前集成结果
      *
@@ -229,8 +254,8 @@ class IntegrationParams {
                 executableIntegrationInfo.put("repositoryPath", paramIntegration.getRepositoryPath());
                 executableIntegrationInfo.put("method", paramIntegration.getQueryMethod());
             } else if (ParamIntegration.Type.INTEGRATE.equals(paramIntegration.getType())) {
-                String protocolContent = IntegrationsInfo.get(paramIntegration.getProtocol()).getProtocolContent();
-                body = JsonUtil.transAndCheck(paramIntegration.getRequestMapping(), json, protocolContent);
+                JsonSchema requestSchema = IntegrationsInfo.get(paramIntegration.getProtocol()).getRequestSchema();
+                body = JsonUtil.transAndValidate(paramIntegration.getRequestMapping(), json, requestSchema);
                 if (null == body) {
                     continue;
                 }
@@ -146,13 +146,15 @@ class ApplicationPresentationsServiceScanner extends ClassPathBeanDefinitionScan
             }
             // 获取ApplicationService注解参数
             String serviceName = beanDefinition.getBeanClass().getSimpleName();
+            String assembler = FileUtils.fileReader(presentationsService.assembler(), List.of("jslt"));
+            JsonUtil.precompileTransform(assembler);
             sourceDefinition.addParameter(
                     routeId(serviceName),
                     ApplicationPresentationsServiceDefinition.builder()
                             .templateId(ApplicationPresentationsServiceRouteConfiguration.ROUTE_TMPL_PRESENTATIONS_SERVICE)
                             .serviceName(serviceName)
                             .paramIntegrationsJson(JsonUtil.writeValueAsString(paramIntegrations))
-                            .assembler(FileUtils.fileReader(presentationsService.assembler(), List.of("jslt")))
+                            .assembler(assembler)
                             .build());
         }
         holders.clear();
@@ -185,6 +187,14 @@ class ApplicationPresentationsServiceScanner extends ClassPathBeanDefinitionScan
         });
         // 按照优先级排序
         paramIntegrations.sort(Comparator.comparing(ParamIntegration::getOrder));
+        // 预编译全部映射，映射错误在启动时暴露
+        paramIntegrations.forEach(integration -> {
+            if (null != integration.getParamMappings()) {
+                integration.getParamMappings().forEach(JsonUtil::precompileCheck);
+            }
+            JsonUtil.precompileCheck(integration.getRequestMapping());
+            JsonUtil.precompileTransform(integration.getResponseMapping());
+        });
         return paramIntegrations;
     }
 
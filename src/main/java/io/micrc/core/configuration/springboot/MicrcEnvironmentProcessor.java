@@ -114,6 +114,8 @@ public class MicrcEnvironmentProcessor implements EnvironmentPostProcessor {
         properties.setProperty("management.endpoint.health.probes.enabled", "true");
         properties.setProperty("management.health.livenessState.enabled", "true");
         properties.setProperty("management.health.readinessState.enabled", "true");
+        // metrics，路由阶段耗时等指标在各环境均可查看
+        properties.setProperty("management.endpoint.metrics.enabled", "true");
     }
 
     private void envForGracefulShutdown(Properties properties) {
@@ -2,13 +2,17 @@ package io.micrc.core.integration.businesses;
 
 import io.micrc.core.AbstractRouteTemplateParamDefinition;
 import io.micrc.core.MicrcRouteBuilder;
+import io.micrc.core.application.businesses.BusinessesAsyncExecution;
 import io.micrc.core.rpc.ErrorInfo;
 import io.micrc.core.rpc.Result;
 import io.micrc.lib.JsonUtil;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.experimental.SuperBuilder;
+import org.apache.camel.Exchange;
 import org.apache.camel.ExchangeProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 
 import java.util.*;
 
@@ -24,6 +28,9 @@ public class ApplicationCommandAdapterRouteConfiguration extends MicrcRouteBuild
     public static final String ROUTE_TMPL_BUSINESSES_ADAPTER = ApplicationCommandAdapterRouteConfiguration.class
             .getName() + ".businessesAdapter";
 
+    @Autowired
+    private Environment env;
+
     @Override
     public void configureRoute() throws Exception {
 
@@ -47,12 +54,31 @@ public class ApplicationCommandAdapterRouteConfiguration extends MicrcRouteBuild
                 .to("direct://request-mapping-businesses")
                 // 2.转换命令
                 .to("direct://convert-command")
-                // 3.执行逻辑
-                .to("direct://execute-businesses")
-                // 4.统一返回
-                .to("direct://commandAdapterResult")
+                .choice()
+                .when(header(BusinessesAsyncExecution.ASYNC_HEADER).isEqualTo("true"))
+                    // 3.异步提交，立即返回执行凭证
+                    .to("direct://submit-businesses")
+                .endChoice()
+                .otherwise()
+                    // 3.执行逻辑
+                    .to("direct://execute-businesses")
+                    // 4.统一返回
+                    .to("direct://commandAdapterResult")
+                .endChoice()
+                .end()
                 .end();
 
+        from("direct://submit-businesses")
+                .process(exchange -> exchange.getIn().setBody(asyncExecution(exchange)
+                        .submit(exchange.getProperty("serviceName", String.class), exchange.getProperty("command"))))
+                .bean(Result.class, "result(${body})");
+
+        // 业务异步执行凭证查询
+        from("rest:get:" + env.getProperty("micrc.businesses.async.ticket-path", "/businesses-tickets/{ticketId}"))
+                .process(exchange -> exchange.getIn().setBody(asyncExecution(exchange)
+                        .ticketResult(exchange.getIn().getHeader("ticketId", String.class))))
+                .marshal().json().convertBodyTo(String.class);
+
         from("direct://execute-businesses")
             .toD("bean://${exchange.properties.get(serviceName)}?method=execute");
 
@@ -87,6 +113,14 @@ public class ApplicationCommandAdapterRouteConfiguration extends MicrcRouteBuild
                 .bean(Result.class, "result(${body}, ${exchange.properties.get(commandResult)})");
     }
 
+    private static BusinessesAsyncExecution asyncExecution(Exchange exchange) {
+        BusinessesAsyncExecution execution = exchange.getContext().getRegistry().findSingleByType(BusinessesAsyncExecution.class);
+        if (null == execution) {
+            throw new IllegalStateException("the businesses async execution not enabled, please enable businesses service. ");
+        }
+        return execution;
+    }
+
     /**
      * 应用业务服务适配器路由参数Bean
      *
@@ -6,6 +6,7 @@ import io.micrc.core.integration.businesses.ApplicationCommandAdapterRouteTempla
 import io.micrc.core.integration.businesses.EnableCommandAdapter;
 import io.micrc.core.integration.message.MethodAdapterDesignException;
 import io.micrc.lib.FileUtils;
+import io.micrc.lib.JsonUtil;
 import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -143,6 +144,9 @@ class ApplicationCommandAdapterScanner extends ClassPathBeanDefinitionScanner {
             if (StringUtils.hasText(responseMappingFile)) {
                 responseMapping = FileUtils.fileReader(responseMappingFile, List.of("jslt"));
             }
+            // 预编译映射，映射错误在启动时暴露
+            JsonUtil.precompileTransform(requestMapping);
+            JsonUtil.precompileTransform(responseMapping);
             String serviceName = commandAdapter.serviceName();
             String servicePath = basePackages[0] + ".application.businesses." + commandAdapter.rootEntityName().toLowerCase() + "." + serviceName;
             Class<?> service = Class.forName(servicePath);
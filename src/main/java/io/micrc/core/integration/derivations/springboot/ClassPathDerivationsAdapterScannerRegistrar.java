@@ -5,6 +5,7 @@ import io.micrc.core.integration.derivations.DerivationsAdapterRouteConfiguratio
 import io.micrc.core.integration.derivations.DerivationsAdapterRouteTemplateParameterSource;
 import io.micrc.core.integration.derivations.EnableDerivationsAdapter;
 import io.micrc.lib.FileUtils;
+import io.micrc.lib.JsonUtil;
 import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -137,6 +138,9 @@ class ApplicationDerivationsAdapterScanner extends ClassPathBeanDefinitionScanne
             if (StringUtils.hasText(responseMappingFile)) {
                 responseMapping = FileUtils.fileReader(responseMappingFile, List.of("jslt"));
             }
+            // 预编译映射，映射错误在启动时暴露
+            JsonUtil.precompileTransform(requestMapping);
+            JsonUtil.precompileTransform(responseMapping);
             String serviceName = derivationsAdapter.serviceName();
             sourceDefinition.addParameter(
                     routeId(adapterName),
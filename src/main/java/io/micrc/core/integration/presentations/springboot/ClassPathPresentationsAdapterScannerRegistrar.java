@@ -6,6 +6,7 @@ import io.micrc.core.integration.presentations.EnablePresentationsAdapter;
 import io.micrc.core.integration.presentations.PresentationsAdapterRouteConfiguration;
 import io.micrc.core.integration.presentations.PresentationsAdapterRouteTemplateParameterSource;
 import io.micrc.lib.FileUtils;
+import io.micrc.lib.JsonUtil;
 import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -138,6 +139,9 @@ class ApplicationPresentationsAdapterScanner extends ClassPathBeanDefinitionScan
             if (StringUtils.hasText(responseMappingFile)) {
                 responseMapping = FileUtils.fileReader(responseMappingFile, List.of("jslt"));
             }
+            // 预编译映射，映射错误在启动时暴露
+            JsonUtil.precompileTransform(requestMapping);
+            JsonUtil.precompileTransform(responseMapping);
             String serviceName = presentationsAdapter.serviceName();
             sourceDefinition.addParameter(
                     routeId(adapterName),
@@ -0,0 +1,145 @@
+package io.micrc.core.message;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 事件消息编码
+ * 发送方按micrc.message.codec编码消息体并写入codec头，接收方按消息的codec头解码，没有codec头的消息为JSON文本。
+ * 二进制编码时每个接收方单独一条消息，映射内容以树嵌入消息体；与旧版本接收方混合部署时发送方需配置为json，仍以一条消息携带全部映射并保留mappingMap头
+ *
+ * @author weiguan
+ * @date 2024-07-22 10:30
+ * @since 0.0.1
+ */
+public enum EventCodec {
+
+    JSON("json", new ObjectMapper()),
+
+    CBOR("cbor", new ObjectMapper(new CBORFactory())),
+
+    SMILE("smile", new ObjectMapper(new SmileFactory()));
+
+    /**
+     * 编码配置项
+     */
+    public static final String CODEC = "micrc.message.codec";
+
+    /**
+     * 标识消息体编码的消息头
+     */
+    public static final String CODEC_HEADER = "codec";
+
+    /**
+     * 标识消息接收方的消息头，消息体只有该接收方的映射。没有该头的消息体为以接收方为键的全部映射
+     */
+    public static final String RECEIVER_HEADER = "receiver";
+
+    private final String codecName;
+
+    private final ObjectMapper mapper;
+
+    private final LongAdder encodedBytes = new LongAdder();
+
+    private final LongAdder encodedMessages = new LongAdder();
+
+    private final LongAdder decodedBytes = new LongAdder();
+
+    private final LongAdder decodedMessages = new LongAdder();
+
+    EventCodec(String codecName, ObjectMapper mapper) {
+        this.codecName = codecName;
+        this.mapper = mapper;
+        mapper.setSerializationInclusion(Include.NON_NULL);
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public String codecName() {
+        return codecName;
+    }
+
+    /**
+     * 按名称查找编码，为空时为JSON
+     *
+     * @param codecName 编码名称
+     * @return          codec
+     */
+    public static EventCodec of(String codecName) {
+        if (null == codecName || codecName.isEmpty()) {
+            return JSON;
+        }
+        for (EventCodec codec : values()) {
+            if (codec.codecName.equalsIgnoreCase(codecName)) {
+                return codec;
+            }
+        }
+        throw new IllegalStateException("the event codec " + codecName + " not supported. ");
+    }
+
+    /**
+     * 编码消息体
+     *
+     * @param value value
+     * @return      payload
+     */
+    public byte[] encode(Object value) {
+        try {
+            byte[] payload = mapper.writeValueAsBytes(value);
+            encodedBytes.add(payload.length);
+            encodedMessages.increment();
+            return payload;
+        } catch (IOException e) {
+            throw new RuntimeException("the event encode fail with " + codecName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解码消息体
+     *
+     * @param payload   payload
+     * @return          tree
+     */
+    public JsonNode decode(byte[] payload) {
+        try {
+            JsonNode node = mapper.readTree(payload);
+            decodedBytes.add(payload.length);
+            decodedMessages.increment();
+            return node;
+        } catch (IOException e) {
+            throw new RuntimeException("the event decode fail with " + codecName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 编码与解码的消息数量与字节数，按编码与方向打标签
+     *
+     * @return  meter binder
+     */
+    public static MeterBinder metrics() {
+        return registry -> {
+            for (EventCodec codec : values()) {
+                FunctionCounter.builder("micrc.message.codec.bytes", codec.encodedBytes, LongAdder::sum)
+                        .tags("codec", codec.codecName, "direction", "encode").baseUnit("bytes")
+                        .description("事件消息编码后的字节数").register(registry);
+                FunctionCounter.builder("micrc.message.codec.messages", codec.encodedMessages, LongAdder::sum)
+                        .tags("codec", codec.codecName, "direction", "encode")
+                        .description("事件消息编码数量").register(registry);
+                FunctionCounter.builder("micrc.message.codec.bytes", codec.decodedBytes, LongAdder::sum)
+                        .tags("codec", codec.codecName, "direction", "decode").baseUnit("bytes")
+                        .description("事件消息解码前的字节数").register(registry);
+                FunctionCounter.builder("micrc.message.codec.messages", codec.decodedMessages, LongAdder::sum)
+                        .tags("codec", codec.codecName, "direction", "decode")
+                        .description("事件消息解码数量").register(registry);
+            }
+        };
+    }
+}
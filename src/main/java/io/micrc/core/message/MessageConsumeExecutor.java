@@ -1,20 +1,25 @@
 package io.micrc.core.message;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
 import io.micrc.core.message.store.EventMessage;
 import io.micrc.core.message.store.EventMessageRepository;
 import io.micrc.core.message.store.IdempotentMessage;
 import io.micrc.core.message.store.IdempotentMessageRepository;
+import io.micrc.core.persistence.snowflake.SnowFlakeIdentity;
 import io.micrc.lib.JsonUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.EndpointInject;
 import org.apache.camel.ProducerTemplate;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
-import java.util.List;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -29,6 +34,9 @@ public class MessageConsumeExecutor {
     @Autowired
     private IdempotentMessageRepository idempotentMessageRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Transactional(rollbackFor = Exception.class)
     public boolean preExecute(HashMap<String, String> messageDetail) {
         Long messageId = Long.valueOf(messageDetail.get("messageId"));
@@ -55,11 +63,16 @@ public class MessageConsumeExecutor {
 
     @Transactional(rollbackFor = Exception.class)
     public Object execute(HashMap<String, String> messageDetail, ProceedingJoinPoint proceedingJoinPoint, boolean custom, HashMap mapping) throws Throwable {
-        String eventName = messageDetail.get("event");
+        return execute(messageDetail, proceedingJoinPoint, proceedingJoinPoint.getArgs(), custom, mapping);
+    }
+
+    /**
+     * 以指定参数执行一条消息，批量接收逐条重试时自定义适配器只以该条消息执行
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Object execute(HashMap<String, String> messageDetail, ProceedingJoinPoint proceedingJoinPoint, Object[] args, boolean custom, HashMap mapping) throws Throwable {
         String messageGroupId = messageDetail.get("groupId");
         String messageId = messageDetail.get("messageId");
-        String topicName = messageDetail.get("topicName");
-        String adapterName = messageDetail.get("adapterName");
         String serviceName = messageDetail.get("serviceName");
         String targetContent = messageDetail.get("content");
         try {
@@ -71,14 +84,8 @@ public class MessageConsumeExecutor {
             }
             idempotentMessage.setStatus("RECEIVED");
             idempotentMessageRepository.save(idempotentMessage);
-            String batchModel = (String) mapping.get("batchModel");
-            String batchModelPath = "/" + batchModel;
-            if (batchModel != null && !batchModel.isEmpty() && JsonUtil.readPath(targetContent, batchModelPath) instanceof List) {
-                copyEvent(mapping, topicName, targetContent, batchModelPath, eventName);
-            } else if (custom) {
-                executeResult = proceedingJoinPoint.proceed(proceedingJoinPoint.getArgs());
-            } else {
-                template.requestBody("message://" + adapterName + "-" + eventName + "-" + serviceName, targetContent);
+            if (!consume(messageDetail, mapping, custom)) {
+                executeResult = proceedingJoinPoint.proceed(args);
             }
             log.info("接收成功{}: 消息{}", serviceName, messageId);
             return executeResult;
@@ -88,18 +95,109 @@ public class MessageConsumeExecutor {
         }
     }
 
-    private void copyEvent(HashMap mapping, String topicName, String targetContent, String batchModelPath, String eventName) {
+    /**
+     * 批量接收同一接收方的一批消息
+     * 一次IN查询并锁定整批的幂等记录，已接收的跳过，其余在同一事务中执行，幂等记录最后以一次JDBC批量写入。
+     * 任一消息失败时整批回滚，由调用方逐条重新接收
+     *
+     * @param serviceName       接收方
+     * @param messageDetails    已过滤的消息
+     * @param mappings          与消息对应的映射
+     * @param custom            是否自定义适配器
+     * @param customExecution   自定义适配器以整批未接收消息的序号执行一次
+     * @return                  本批执行的消息数量
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int executeBatch(String serviceName, List<HashMap<String, String>> messageDetails, List<HashMap> mappings,
+                            boolean custom, BatchProceed customExecution) throws Throwable {
+        List<Long> sequences = messageDetails.stream()
+                .map(messageDetail -> Long.valueOf(messageDetail.get("messageId"))).collect(Collectors.toList());
+        Map<Long, IdempotentMessage> idempotentMessages = idempotentMessageRepository.findAllBySequenceInAndReceiver(sequences, serviceName)
+                .stream().collect(Collectors.toMap(IdempotentMessage::getSequence, message -> message, (m1, m2) -> m1));
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Integer> customIndexes = new ArrayList<>();
+        Set<Long> accepted = new HashSet<>();
+        for (int index = 0; index < messageDetails.size(); index++) {
+            HashMap<String, String> messageDetail = messageDetails.get(index);
+            Long sequence = sequences.get(index);
+            IdempotentMessage idempotentMessage = idempotentMessages.get(sequence);
+            if ((null != idempotentMessage && received(idempotentMessage, serviceName, sequence.toString())) || !accepted.add(sequence)) {
+                continue;
+            }
+            if (null == idempotentMessage) {
+                inserts.add(new Object[]{SnowFlakeIdentity.getInstance().nextId(), sequence, messageDetail.get("senderHost"), serviceName, "RECEIVED"});
+            } else {
+                updates.add(new Object[]{"RECEIVED", idempotentMessage.getIdempotentMessageId()});
+            }
+            log.info("接收开始{}: 消息{}，参数{}，死信{}", serviceName, sequence, messageDetail.get("content"), null != messageDetail.get("groupId"));
+            if (!consume(messageDetail, mappings.get(index), custom)) {
+                customIndexes.add(index);
+            }
+        }
+        if (!customIndexes.isEmpty()) {
+            customExecution.proceed(customIndexes);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into message_idempotent_message " +
+                    "(idempotent_message_id, sequence, sender, receiver, status) values (?, ?, ?, ?, ?)", inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("update message_idempotent_message set status = ? where idempotent_message_id = ?", updates);
+        }
+        log.info("批量接收{}: 消息{}条，执行{}条", serviceName, messageDetails.size(), accepted.size());
+        return accepted.size();
+    }
+
+    /**
+     * 执行一条消息，批量事件复制为独立事件，其余交给接收路由。自定义适配器的消息不在此执行，返回false
+     */
+    private boolean consume(HashMap<String, String> messageDetail, HashMap mapping, boolean custom) {
+        String eventName = messageDetail.get("event");
+        String serviceName = messageDetail.get("serviceName");
+        String targetContent = messageDetail.get("content");
+        String batchModel = (String) mapping.get("batchModel");
+        String batchModelPath = "/" + batchModel;
+        JsonNode contentNode = batchModel != null && !batchModel.isEmpty() ? JsonUtil.readTree(targetContent) : null;
+        if (null != contentNode && contentNode.at(batchModelPath).isArray()) {
+            copyEvent(mapping, messageDetail.get("topicName"), contentNode, batchModelPath, eventName);
+        } else if (custom) {
+            return false;
+        } else {
+            template.requestBody("message://" + messageDetail.get("adapterName") + "-" + eventName + "-" + serviceName, targetContent);
+        }
+        return true;
+    }
+
+    /**
+     * 自定义适配器批量执行
+     */
+    @FunctionalInterface
+    public interface BatchProceed {
+
+        void proceed(List<Integer> indexes) throws Throwable;
+    }
+
+    /**
+     * 批量事件按批次项复制为独立事件。内容只解析一次，批次数组从内容中摘出后逐项放回序列化，
+     * 已复制的批次项即时释放，不再为每一项重新解析整个内容
+     */
+    private void copyEvent(HashMap mapping, String topicName, JsonNode contentNode, String batchModelPath, String eventName) {
         mapping.put("mappingPath", ".");
         mapping.put("batchModel", null);
-        ((List) JsonUtil.readPath(targetContent, batchModelPath)).forEach(eventData -> {
+        String originalMapping = JsonUtil.writeValueAsString(mapping);
+        ArrayNode batchData = (ArrayNode) contentNode.at(batchModelPath);
+        JsonUtil.patch(contentNode, batchModelPath, NullNode.getInstance());
+        for (int index = 0; index < batchData.size(); index++) {
+            JsonUtil.patch(contentNode, batchModelPath, batchData.get(index));
+            batchData.set(index, NullNode.getInstance());
             EventMessage eventMessage = new EventMessage();
-            String splitContentString = JsonUtil.patch(targetContent, batchModelPath, JsonUtil.writeValueAsString(eventData));
-            eventMessage.setContent(splitContentString);
+            eventMessage.setContent(JsonUtil.writeValueAsStringRetainNull(contentNode));
             eventMessage.setOriginalTopic(topicName);
-            eventMessage.setOriginalMapping(JsonUtil.writeValueAsString(mapping));
+            eventMessage.setOriginalMapping(originalMapping);
             eventMessage.setRegion(eventName);
             eventMessage.setStatus("WAITING");
             eventMessageRepository.save(eventMessage);
-        });
+        }
     }
 }
@@ -1,8 +1,8 @@
 package io.micrc.core.message;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.micrc.core.annotations.message.Adapter;
 import io.micrc.core.annotations.message.MessageAdapter;
-import io.micrc.lib.JsonUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.Header;
@@ -16,13 +16,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.Ordered;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
 
 import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 /**
  * 消息消费路由执行
  *
@@ -46,20 +45,25 @@ public class MessageConsumeRouterExecution implements Ordered {
         // 解析消息入参
         Object[] args = proceedingJoinPoint.getArgs();
         ConsumerRecord<?, ?> consumerRecord = null;
+        List<ConsumerRecord<?, ?>> consumerRecords = null;
+        int recordsIndex = -1;
         Acknowledgment acknowledgment = null;
-        for (Object arg : args) {
+        for (int index = 0; index < args.length; index++) {
+            Object arg = args[index];
             if(arg instanceof ConsumerRecord){
                 consumerRecord = (ConsumerRecord<?, ?>) arg;
             }
+            if (arg instanceof List) {
+                consumerRecords = records(arg);
+                recordsIndex = index;
+            }
             if(arg instanceof Acknowledgment){
                 acknowledgment = (Acknowledgment) arg;
             }
         }
-        if (null == consumerRecord || null == acknowledgment) {
+        if ((null == consumerRecord && null == consumerRecords) || null == acknowledgment) {
             throw new IllegalArgumentException("sys args error");
         }
-        HashMap<String, String> messageDetail = new HashMap<>();
-        transMessageHeaders(consumerRecord, messageDetail);
 
         // 解析监听器注解参数
         Class<?>[] interfaces = proceedingJoinPoint.getTarget().getClass().getInterfaces();
@@ -68,6 +72,90 @@ public class MessageConsumeRouterExecution implements Ordered {
                     "businesses service implementation class must only implement it's interface. ");
         }
         Class<?> adapter = interfaces[0];
+        String listenerGroupId = getListenerAnnotation(proceedingJoinPoint).groupId();
+        if (null != consumerRecords) {
+            return aroundBatch(proceedingJoinPoint, recordsIndex, consumerRecords, acknowledgment, adapter, listenerGroupId);
+        }
+
+        HashMap<String, String> messageDetail = new HashMap<>();
+        HashMap mapping = resolve(consumerRecord, messageDetail, adapter, listenerGroupId);
+        if (null == mapping) {
+            acknowledgment.acknowledge();
+            return null;
+        }
+        boolean consumed = messageConsumeExecutor.preExecute(messageDetail);
+        if (consumed) {
+            // 重复消息
+            acknowledgment.acknowledge();
+            return null;
+        }
+        Object result = messageConsumeExecutor.execute(messageDetail, proceedingJoinPoint, adapter.getAnnotation(MessageAdapter.class).custom(), mapping);
+        acknowledgment.acknowledge();
+        return result;
+    }
+
+    /**
+     * 批量接收，监听器以List<ConsumerRecord>接收，容器工厂由MessageAutoConfiguration按监听方法参数切换为批量工厂
+     * 按接收方分组，每组一次查询幂等记录并在一个事务中执行，整批处理完成后提交一次位移。
+     * 批量执行失败时逐条重新接收，某条仍失败时以其位置抛出，之前的消息已提交，由错误处理器从失败消息开始重试
+     */
+    private Object aroundBatch(ProceedingJoinPoint proceedingJoinPoint, int recordsIndex, List<ConsumerRecord<?, ?>> consumerRecords,
+                               Acknowledgment acknowledgment, Class<?> adapter, String listenerGroupId) throws Throwable {
+        boolean custom = adapter.getAnnotation(MessageAdapter.class).custom();
+        List<ConsumerRecord<?, ?>> acceptedRecords = new ArrayList<>();
+        List<HashMap<String, String>> messageDetails = new ArrayList<>();
+        List<HashMap> mappings = new ArrayList<>();
+        for (ConsumerRecord<?, ?> consumerRecord : consumerRecords) {
+            HashMap<String, String> messageDetail = new HashMap<>();
+            HashMap mapping = resolve(consumerRecord, messageDetail, adapter, listenerGroupId);
+            if (null != mapping) {
+                acceptedRecords.add(consumerRecord);
+                messageDetails.add(messageDetail);
+                mappings.add(mapping);
+            }
+        }
+        Map<String, List<Integer>> receivers = new LinkedHashMap<>();
+        for (int index = 0; index < messageDetails.size(); index++) {
+            receivers.computeIfAbsent(messageDetails.get(index).get("serviceName"), serviceName -> new ArrayList<>()).add(index);
+        }
+        try {
+            for (Map.Entry<String, List<Integer>> receiver : receivers.entrySet()) {
+                List<Integer> indexes = receiver.getValue();
+                messageConsumeExecutor.executeBatch(receiver.getKey(),
+                        indexes.stream().map(messageDetails::get).collect(Collectors.toList()),
+                        indexes.stream().map(mappings::get).collect(Collectors.toList()),
+                        custom, customIndexes -> {
+                            // 自定义适配器以本组未接收的消息执行一次
+                            Object[] args = proceedingJoinPoint.getArgs().clone();
+                            args[recordsIndex] = customIndexes.stream()
+                                    .map(customIndex -> acceptedRecords.get(indexes.get(customIndex))).collect(Collectors.toList());
+                            proceedingJoinPoint.proceed(args);
+                        });
+            }
+        } catch (Throwable e) {
+            log.error("批量接收失败{}: {}条，逐条重新接收，错误信息{}", adapter.getSimpleName(), acceptedRecords.size(), e.getLocalizedMessage());
+            for (int index = 0; index < acceptedRecords.size(); index++) {
+                HashMap<String, String> messageDetail = messageDetails.get(index);
+                try {
+                    if (!messageConsumeExecutor.preExecute(messageDetail)) {
+                        Object[] args = proceedingJoinPoint.getArgs().clone();
+                        args[recordsIndex] = List.of(acceptedRecords.get(index));
+                        messageConsumeExecutor.execute(messageDetail, proceedingJoinPoint, args, custom, mappings.get(index));
+                    }
+                } catch (Throwable recordError) {
+                    throw new BatchListenerFailedException(recordError.getLocalizedMessage(), recordError, acceptedRecords.get(index));
+                }
+            }
+        }
+        acknowledgment.acknowledge();
+        return null;
+    }
+
+    /**
+     * 解析消息头并过滤，返回本接收方的映射。不需要本接收方执行的消息返回null
+     */
+    private HashMap resolve(ConsumerRecord<?, ?> consumerRecord, HashMap<String, String> messageDetail, Class<?> adapter, String listenerGroupId) {
+        transMessageHeaders(consumerRecord, messageDetail);
         MessageAdapter messageAdapter = adapter.getAnnotation(MessageAdapter.class);
         Adapter[]  adapters = messageAdapter.value();
         String eventName = messageDetail.get("event");
@@ -75,46 +163,45 @@ public class MessageConsumeRouterExecution implements Ordered {
         Adapter annotation = optionalAnnotation.orElse(null);
         if (null == annotation) {
             // 接收方未指定执行逻辑
-            acknowledgment.acknowledge();
             return null;
         }
         String servicePath = annotation.commandServicePath();
         String[] servicePathSplit = servicePath.split("\\.");
         String serviceName = servicePathSplit[servicePathSplit.length - 1];
 
-        String mappingMapString = messageDetail.get("mappingMap");
-        HashMap mappingMap = JsonUtil.writeValueAsObject(mappingMapString, HashMap.class);
-        Object mappingObj = mappingMap.get(serviceName);
-        HashMap mapping = JsonUtil.writeObjectAsObject(mappingObj, HashMap.class);
-        String mappingString = mapping == null ? null : (String) mapping.get("mappingPath");
-        if (null == mappingString) {
-            // 发送方未指定消息映射
-            acknowledgment.acknowledge();
+        String receiver = messageDetail.get(EventCodec.RECEIVER_HEADER);
+        if (null != receiver && !receiver.equals(serviceName)) {
+            // 发给其他接收方的消息，不解码直接跳过
             return null;
         }
 
-        KafkaListener listenerAnnotation = getListenerAnnotation(proceedingJoinPoint);
-        String listenerGroupId = listenerAnnotation.groupId();
         String messageGroupId = messageDetail.get("groupId");
         if (null != messageGroupId && !messageGroupId.isEmpty() && !messageGroupId.equals(listenerGroupId)) {
             // 发给其他指定组的无关死信
-            acknowledgment.acknowledge();
+            return null;
+        }
+
+        // 按codec头解码消息体，只取本接收方的映射
+        Map<String, JsonNode> mappingMap = MessageRouteConfiguration.decodeMappingMap(consumerRecord, messageDetail);
+        JsonNode mappingNode = mappingMap.get(serviceName);
+        HashMap mapping = null == mappingNode ? null : MessageRouteConfiguration.textMapping(mappingNode, messageDetail);
+        String mappingString = mapping == null ? null : (String) mapping.get("mappingPath");
+        if (null == mappingString) {
+            // 发送方未指定消息映射
             return null;
         }
 
         messageDetail.put("topicName", consumerRecord.topic());
         messageDetail.put("adapterName", adapter.getSimpleName());
         messageDetail.put("serviceName", serviceName);
-        messageDetail.put("content", JsonUtil.transform(mappingString, consumerRecord.value()));
-        boolean consumed = messageConsumeExecutor.preExecute(messageDetail);
-        if (consumed) {
-            // 重复消息
-            acknowledgment.acknowledge();
-            return null;
-        }
-        Object result = messageConsumeExecutor.execute(messageDetail, proceedingJoinPoint, messageAdapter.custom(), mapping);
-        acknowledgment.acknowledge();
-        return result;
+        // 映射内容由发送方转换完成，不再以其为表达式对消息体重复转换
+        messageDetail.put("content", mappingString);
+        return mapping;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ConsumerRecord<?, ?>> records(Object arg) {
+        return (List<ConsumerRecord<?, ?>>) arg;
     }
 
     private static KafkaListener getListenerAnnotation(ProceedingJoinPoint proceedingJoinPoint) throws NoSuchMethodException {
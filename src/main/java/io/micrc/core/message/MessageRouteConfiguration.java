@@ -1,10 +1,15 @@
 package io.micrc.core.message;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.micrc.core.message.error.ErrorMessage;
 import io.micrc.core.message.error.ErrorMessageRepository;
 import io.micrc.core.message.store.EventMessage;
 import io.micrc.core.message.store.EventMessageRepository;
 import io.micrc.core.message.store.IdempotentMessageRepository;
+import io.micrc.core.message.store.MessagePublishPolicy;
 import io.micrc.lib.JsonUtil;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -26,14 +31,16 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.util.StringUtils;
-import org.springframework.util.concurrent.ListenableFuture;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -56,6 +63,20 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
     @Autowired
     EventMessageRepository eventMessageRepository;
 
+    @Autowired
+    ErrorMessageRepository errorMessageRepository;
+
+    @Autowired
+    MessagePublishPolicy messagePublishPolicy;
+
+    private static final String BROKER_TOPICS = "micrc.broker.topics.";
+
+    private volatile EventCodec eventCodec;
+
+    private volatile Map<String, String> topicTemplateNames;
+
+    private final Map<String, KafkaTemplate<String, byte[]>> topicTemplates = new ConcurrentHashMap<>();
+
     @Override
     public void setApplicationContext(@NotNull ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
@@ -71,17 +92,19 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
                 deadLetterDetail.put(header.key(), new String(header.value()));
             }
             if (deadLetterDetail.get("senderHost").equals(environment.getProperty("micrc.x-host"))) {
+                // 按原消息的编码解码，错误消息内容保存为JSON，映射内容统一为文本，重发时再按发送方的编码编码
+                Map<String, Object> mappingMap = new LinkedHashMap<>();
+                decodeMappingMap(consumerRecord, deadLetterDetail)
+                        .forEach((receiver, mapping) -> mappingMap.put(receiver, textMapping(mapping, deadLetterDetail)));
                 ErrorMessage errorMessage = new ErrorMessage();
                 errorMessage.setMessageId(Long.valueOf(deadLetterDetail.get("messageId")));
                 errorMessage.setEvent(deadLetterDetail.get("event"));
-                errorMessage.setContent(consumerRecord.value().toString());
+                errorMessage.setContent(JsonUtil.writeValueAsString(mappingMap));
                 errorMessage.setGroupId(deadLetterDetail.get("kafka_dlt-original-consumer-group")); // 原始消费者组ID
                 boolean isCopyEvent = Boolean.parseBoolean(deadLetterDetail.get("isCopyEvent"));
                 if (isCopyEvent) {
                     errorMessage.setOriginalTopic(deadLetterDetail.get("kafka_dlt-original-topic"));
-                    String mappingMap = deadLetterDetail.get("mappingMap");
-                    HashMap hashMap = JsonUtil.writeValueAsObject(mappingMap, HashMap.class);
-                    Object next = hashMap.values().iterator().next();
+                    Object next = mappingMap.values().iterator().next();
                     errorMessage.setOriginalMapping(JsonUtil.writeValueAsString(next));
                 }
                 errorMessage.setErrorCount(1);
@@ -96,6 +119,87 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
         }
     }
 
+    /**
+     * 按消息的codec头解码消息体中的映射，没有codec头的消息为JSON文本。有receiver头的消息体只有该接收方的映射
+     *
+     * @param consumerRecord    consumerRecord
+     * @param headers           headers
+     * @return                  以接收方为键的映射树
+     */
+    public static Map<String, JsonNode> decodeMappingMap(ConsumerRecord<?, ?> consumerRecord, Map<String, String> headers) {
+        Object value = consumerRecord.value();
+        byte[] payload = value instanceof byte[] ? (byte[]) value : String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        JsonNode decoded = EventCodec.of(headers.get(EventCodec.CODEC_HEADER)).decode(payload);
+        Map<String, JsonNode> mappingMap = new LinkedHashMap<>();
+        String receiver = headers.get(EventCodec.RECEIVER_HEADER);
+        if (null != receiver) {
+            mappingMap.put(receiver, decoded);
+            return mappingMap;
+        }
+        decoded.fields().forEachRemaining(field -> mappingMap.put(field.getKey(), field.getValue()));
+        return mappingMap;
+    }
+
+    /**
+     * 接收方映射中的映射内容文本，没有映射内容时为null。
+     * JSON编码的映射内容本身为JSON文本，二进制编码的映射内容为树，在此转为接收路由需要的文本
+     *
+     * @param mapping   接收方映射树
+     * @param headers   headers
+     * @return          映射内容
+     */
+    public static String mappingContent(JsonNode mapping, Map<String, String> headers) {
+        JsonNode content = mapping.get("mappingPath");
+        if (null == content || content.isNull()) {
+            return null;
+        }
+        return EventCodec.JSON == EventCodec.of(headers.get(EventCodec.CODEC_HEADER))
+                ? content.asText() : JsonUtil.writeValueAsStringRetainNull(content);
+    }
+
+    /**
+     * 映射内容为文本的接收方映射，与JSON编码的映射一致，供接收路由、事件复制与错误消息使用
+     *
+     * @param mapping   接收方映射树
+     * @param headers   headers
+     * @return          映射
+     */
+    public static LinkedHashMap<String, Object> textMapping(JsonNode mapping, Map<String, String> headers) {
+        LinkedHashMap<String, Object> textMapping = new LinkedHashMap<>();
+        mapping.fields().forEachRemaining(field -> textMapping.put(field.getKey(), "mappingPath".equals(field.getKey())
+                ? mappingContent(mapping, headers) : JsonUtil.writeTreeAsObject(field.getValue(), Object.class)));
+        return textMapping;
+    }
+
+    /**
+     * 接收方映射的消息体。
+     * JSON编码时映射内容为JSON文本，与旧版本接收方一致；二进制编码时映射内容以树嵌入消息体，随消息体一同按二进制编码
+     *
+     * @param codec         codec
+     * @param eventMapping  事件映射
+     * @param content       映射内容
+     * @return              payload
+     */
+    public static Object mappingPayload(EventCodec codec, EventsInfo.EventMapping eventMapping, JsonNode content) {
+        if (EventCodec.JSON == codec) {
+            return EventsInfo.EventMapping.builder()
+                    .mappingKey(eventMapping.getMappingKey())
+                    .mappingPath(JsonUtil.writeValueAsStringRetainNull(content))
+                    .receiverAddress(eventMapping.getReceiverAddress())
+                    .batchModel(eventMapping.getBatchModel()).build();
+        }
+        ObjectNode payload = JsonNodeFactory.instance.objectNode();
+        payload.put("mappingKey", eventMapping.getMappingKey());
+        payload.set("mappingPath", content);
+        if (null != eventMapping.getReceiverAddress()) {
+            payload.put("receiverAddress", eventMapping.getReceiverAddress());
+        }
+        if (null != eventMapping.getBatchModel()) {
+            payload.put("batchModel", eventMapping.getBatchModel());
+        }
+        return payload;
+    }
+
     /**
      * 发送消息
      *
@@ -113,39 +217,111 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
         String content = (String) eventObject.get("content");
         Long messageId = (Long) eventObject.get("messageId");
         Object groupId = eventObject.get("groupId");
+        List<Message<byte[]>> messages = constructMessages(eventInfo, isCopyEvent, content, messageId, groupId);
+
+        KafkaTemplate<String, byte[]> kafkaTemplate = findKafkaTemplate(eventInfo);
+
+        sendAll(kafkaTemplate, messages).whenCompleteAsync((sendResult, throwable) -> {
+            resolveSendResult(eventInfo, isCopyEvent, throwable, messageId, groupId, content);
+        });
+    }
+
+    /**
+     * 批量发送同一事件的正常消息
+     * 全部消息提交至同一KafkaTemplate后统一flush，发送结果汇总后一次写入错误表
+     *
+     * @param eventMessages eventMessages
+     * @param eventInfo     eventInfo
+     */
+    @Consume("publish://sending-message-batch")
+    public void sendBatch(@Body List<EventMessage> eventMessages, @Header("eventInfo") EventsInfo.Event eventInfo) {
+        KafkaTemplate<String, byte[]> kafkaTemplate = findKafkaTemplate(eventInfo);
+        // 每条消息的发送结果，成功为null，失败为对应的错误消息
+        List<CompletableFuture<ErrorMessage>> results = eventMessages.stream().map(eventMessage -> {
+            String content = eventMessage.getContent();
+            Long messageId = eventMessage.getMessageId();
+            try {
+                return sendAll(kafkaTemplate, constructMessages(eventInfo, null, content, messageId, null))
+                        .handle((sendResult, throwable) -> null == throwable ? null
+                                : constructErrorMessage(eventInfo, content, messageId, null, sendError(throwable)));
+            } catch (Exception e) {
+                return CompletableFuture.completedFuture(constructErrorMessage(eventInfo, content, messageId, null, e.getLocalizedMessage()));
+            }
+        }).collect(Collectors.toList());
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).whenCompleteAsync((v, throwable) -> {
+            List<ErrorMessage> errorMessages = results.stream().map(CompletableFuture::join)
+                    .filter(Objects::nonNull).collect(Collectors.toList());
+            log.info("批量发送{}: 成功{}，失败{}", eventInfo.getEventName(), results.size() - errorMessages.size(), errorMessages.size());
+            if (!errorMessages.isEmpty()) {
+                producerTemplate.requestBody("publish://error-sending-resolve-batch", errorMessages);
+            }
+        });
+    }
+
+    /**
+     * 事件的全部接收方消息都发送成功时完成，任一失败时以其异常完成
+     */
+    private static CompletableFuture<Void> sendAll(KafkaTemplate<String, byte[]> kafkaTemplate, List<Message<byte[]>> messages) {
+        return CompletableFuture.allOf(messages.stream()
+                .map(message -> kafkaTemplate.send(message).completable())
+                .toArray(CompletableFuture[]::new));
+    }
+
+    private static String sendError(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && null != throwable.getCause() ? throwable.getCause() : throwable;
+        return cause.getLocalizedMessage();
+    }
+
+    /**
+     * 构造事件消息
+     * 二进制编码时每个接收方一条消息，消息体只有该接收方的映射，接收方由receiver头标识，其他接收方不解码直接跳过；
+     * JSON编码时为兼容旧版本接收方，一条消息携带全部接收方的映射并保留mappingMap头
+     */
+    private List<Message<byte[]>> constructMessages(EventsInfo.Event eventInfo, Boolean isCopyEvent, String content, Long messageId, Object groupId) {
         boolean isDeadLetter = StringUtils.hasText((String) groupId);
-        Map<String, EventsInfo.EventMapping> mappingMap;
+        EventCodec codec = eventCodec();
+        Map<String, Object> mappingMap = new LinkedHashMap<>();
         if (isDeadLetter) {
-            mappingMap = JsonUtil.writeValueAsObject(content, HashMap.class);
+            // 错误消息中的映射内容为JSON文本
+            Map<String, EventsInfo.EventMapping> deadLetterMappings =
+                    JsonUtil.write2Object(content, new TypeReference<LinkedHashMap<String, EventsInfo.EventMapping>>() {});
+            deadLetterMappings.forEach((mappingKey, eventMapping) -> mappingMap.put(mappingKey, EventCodec.JSON == codec
+                    ? eventMapping : mappingPayload(codec, eventMapping, JsonUtil.readTree(eventMapping.getMappingPath()))));
         } else {
-            mappingMap = eventInfo.getEventMappings().stream()
-                    .map(eventMapping -> EventsInfo.EventMapping.builder()
-                            .mappingKey(eventMapping.getMappingKey())
-                            .mappingPath(JsonUtil.transform(eventMapping.getMappingPath(), content))
-                            .receiverAddress(eventMapping.getReceiverAddress())
-                            .batchModel(eventMapping.getBatchModel()).build()
-                    ).collect(Collectors.toMap(EventsInfo.EventMapping::getMappingKey, i -> i, (i1, i2) -> i1));
+            // 事件内容只解析一次，各接收方的映射以同一棵树转换
+            JsonNode contentNode = JsonUtil.readTree(content);
+            eventInfo.getEventMappings().forEach(eventMapping -> mappingMap.computeIfAbsent(eventMapping.getMappingKey(),
+                    mappingKey -> mappingPayload(codec, eventMapping, JsonUtil.transformTree(eventMapping.getMappingPath(), contentNode))));
         }
-        // for kafka stringSerializer
-        String mappingMapContent = JsonUtil.writeValueAsString(mappingMap);
-        Message<?> objectMessage = MessageBuilder
-                .withPayload(mappingMapContent)
+        if (EventCodec.JSON == codec) {
+            return List.of(messageBuilder(eventInfo, isCopyEvent, messageId, isDeadLetter ? groupId : null, codec, mappingMap)
+                    .setHeader("mappingMap", mappingMap).build());
+        }
+        return mappingMap.entrySet().stream()
+                .map(entry -> messageBuilder(eventInfo, isCopyEvent, messageId, isDeadLetter ? groupId : null, codec, entry.getValue())
+                        .setHeader(EventCodec.RECEIVER_HEADER, entry.getKey()).build())
+                .collect(Collectors.toList());
+    }
+
+    private MessageBuilder<byte[]> messageBuilder(EventsInfo.Event eventInfo, Boolean isCopyEvent, Long messageId, Object groupId,
+                                                  EventCodec codec, Object payload) {
+        return MessageBuilder
+                .withPayload(codec.encode(payload))
                 .setHeader(KafkaHeaders.TOPIC, eventInfo.getTopicName())
-                .setHeader("groupId", isDeadLetter ? groupId : null)
+                .setHeader("groupId", groupId)
                 .setHeader("senderHost", environment.getProperty("micrc.x-host"))
                 .setHeader("messageId", messageId)
                 .setHeader("isCopyEvent", isCopyEvent)
                 .setHeader("event", eventInfo.getEventName())
-                .setHeader("mappingMap", mappingMap).build();
-
-        Optional<String> profileStr = Optional.ofNullable(environment.getProperty("application.profiles"));
-        List<String> profiles = Arrays.asList(profileStr.orElse("").split(","));
-        KafkaTemplate<String, String> kafkaTemplate = findKafkaTemplate(eventInfo, profiles);
+                .setHeader(EventCodec.CODEC_HEADER, codec.codecName());
+    }
 
-        ListenableFuture<SendResult<String, String>> future = kafkaTemplate.send(objectMessage);
-        future.completable().whenCompleteAsync((sendResult, throwable) -> {
-            resolveSendResult(eventInfo, isCopyEvent, throwable, messageId, groupId, content);
-        });
+    private EventCodec eventCodec() {
+        if (null == eventCodec) {
+            eventCodec = EventCodec.of(environment.getProperty(EventCodec.CODEC, EventCodec.CBOR.codecName()));
+        }
+        return eventCodec;
     }
 
     private void resolveSendResult(EventsInfo.Event eventInfo, Boolean isCopyEvent, Throwable throwable, Long messageId, Object groupId, String content) {
@@ -158,38 +334,55 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
             log.info("发送成功: " + messageId + "，是否死信" + (groupId != null));
         } else {
             // 发送失败 则 记录错误信息/累加错误次数
-            ErrorMessage errorMessage = constructErrorMessage(eventInfo, content, messageId, isCopyEvent, throwable.getLocalizedMessage());
+            ErrorMessage errorMessage = constructErrorMessage(eventInfo, content, messageId, isCopyEvent, sendError(throwable));
             producerTemplate.requestBody("publish://error-sending-resolve", errorMessage);
             log.error("发送失败: " + messageId + "，是否死信" + (groupId != null));
         }
     }
 
+    /**
+     * 按主题查找发送模版，每个主题只解析一次，之后直接取用
+     */
     @NotNull
-    private KafkaTemplate<String, String> findKafkaTemplate(EventsInfo.Event eventInfo, List<String> profiles) {
-        KafkaTemplate<String, String> kafkaTemplate;
-        if (profiles.contains("default") || profiles.contains("local")) {
-            kafkaTemplate = applicationContext.getBean("kafkaTemplate", KafkaTemplate.class);
-        } else {
-            String topicName = eventInfo.getTopicName();
-            Properties properties = (Properties)((ConfigurableEnvironment)environment).getPropertySources().get("micrc").getSource();
-            String provider = properties.entrySet().stream().filter(entry -> {
-                if (entry.getKey().toString().startsWith("micrc.broker.topics.")) {
-                    String[] split = entry.getValue().toString().split(",");
-                    return Arrays.asList(split).contains(topicName);
-                }
-                return false;
-            }).map(entry -> {
-                String[] split = entry.getKey().toString().split("micrc\\.broker\\.topics\\.");
-                return split[split.length - 1];
-            }).findFirst().orElseThrow();
-            if ("public".equalsIgnoreCase(provider)) {
-                provider = "";
-            } else {
-                provider = "-" + provider;
+    @SuppressWarnings("unchecked")
+    private KafkaTemplate<String, byte[]> findKafkaTemplate(EventsInfo.Event eventInfo) {
+        return topicTemplates.computeIfAbsent(eventInfo.getTopicName(), topic -> {
+            Optional<String> profileStr = Optional.ofNullable(environment.getProperty("application.profiles"));
+            List<String> profiles = Arrays.asList(profileStr.orElse("").split(","));
+            if (profiles.contains("default") || profiles.contains("local")) {
+                return applicationContext.getBean("kafkaTemplate", KafkaTemplate.class);
+            }
+            String beanName = topicTemplateNames().get(topic);
+            if (null == beanName) {
+                throw new IllegalStateException("the topic " + topic + " not configured in any broker provider. ");
+            }
+            return applicationContext.getBean(beanName, KafkaTemplate.class);
+        });
+    }
+
+    /**
+     * 主题与发送模版名称的对应，由micrc.broker.topics.*配置一次算出
+     */
+    private Map<String, String> topicTemplateNames() {
+        Map<String, String> templateNames = this.topicTemplateNames;
+        if (null != templateNames) {
+            return templateNames;
+        }
+        templateNames = new HashMap<>();
+        Properties properties = (Properties) ((ConfigurableEnvironment) environment).getPropertySources().get("micrc").getSource();
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            String key = entry.getKey().toString();
+            if (!key.startsWith(BROKER_TOPICS)) {
+                continue;
+            }
+            String provider = key.substring(BROKER_TOPICS.length());
+            String beanName = "public".equalsIgnoreCase(provider) ? "kafkaTemplate" : "kafkaTemplate-" + provider;
+            for (String topic : entry.getValue().toString().split(",")) {
+                templateNames.putIfAbsent(topic, beanName);
             }
-            kafkaTemplate = applicationContext.getBean("kafkaTemplate" + provider, KafkaTemplate.class);
         }
-        return kafkaTemplate;
+        this.topicTemplateNames = templateNames;
+        return templateNames;
     }
 
     private ErrorMessage constructErrorMessage(EventsInfo.Event eventInfo, String content, Long messageId, Boolean isCopyEvent, String error) {
@@ -243,6 +436,37 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
         return eventMessage;
     }
 
+    /**
+     * 批量标记已发送，返回需要更新状态的消息ID
+     *
+     * @param eventMessages eventMessages
+     * @return              messageIds
+     */
+    @Consume("publish://normal-resolving-batch")
+    public List<Long> normalResolvingBatch(@Body List<EventMessage> eventMessages) {
+        return eventMessages.stream().map(EventMessage::getMessageId).collect(Collectors.toList());
+    }
+
+    /**
+     * 合并批量发送失败的错误信息，已存在的累加错误次数，不存在的新建
+     *
+     * @param errorMessages errorMessages
+     * @return              errorMessages
+     */
+    @Consume("publish://error-sending-resolve-merge")
+    public List<ErrorMessage> mergeErrorMessages(@Body List<ErrorMessage> errorMessages) {
+        List<Long> messageIds = errorMessages.stream().map(ErrorMessage::getMessageId).collect(Collectors.toList());
+        Map<Long, ErrorMessage> exists = errorMessageRepository.findAllByMessageIdInAndGroupId(messageIds, "").stream()
+                .collect(Collectors.toMap(ErrorMessage::getMessageId, i -> i, (i1, i2) -> i1));
+        return errorMessages.stream().map(current -> {
+            ErrorMessage errorMessage = exists.get(current.getMessageId());
+            if (null == errorMessage) {
+                return createErrorMessage(current);
+            }
+            return updateErrorMessage(errorMessage, current);
+        }).collect(Collectors.toList());
+    }
+
     /**
      * 修改跟踪器序号
      *
@@ -346,6 +570,9 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
         onException(PessimisticLockingFailureException.class)
                 .handled(true);
 
+        // 批量发送模式，同一事件的正常消息一次更新状态、一次提交发送
+        boolean batchPublish = environment.getProperty("micrc.message.batch-publish", Boolean.class, false);
+
         // 通用消息存储路由
         from("eventstore://store")
                 .routeId("eventstore://store")
@@ -358,6 +585,10 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
                         eventMessage.setContent(content);
                         eventMessage.setRegion(eventName);
                         eventMessage.setStatus("WAITING");
+                        Object appointmentTime = JsonUtil.readPath(content, "/event/appointmentTime");
+                        if (appointmentTime instanceof Number) {
+                            eventMessage.setAppointmentTime(((Number) appointmentTime).longValue());
+                        }
                         eventMessageRepository.save(eventMessage);
                     }
                 });
@@ -372,6 +603,19 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
                 .to("publish://sending-message")
                 .end();
 
+        // 正常消息批量发送路由
+        from("publish://send-normal-batch")
+                .routeId("publish://send-normal-batch")
+                .transacted()
+                .setProperty("batchEvents", body())
+                .to("publish://normal-resolving-batch")
+                .bean(EventMessageRepository.class, "updateStatusSentByMessageIds")
+                .setBody(exchangeProperty("batchEvents"))
+                .removeProperty("batchEvents")
+                .setHeader("eventInfo", exchangeProperty("eventInfo"))
+                .to("publish://sending-message-batch")
+                .end();
+
         // 错误消息发送路由
         from("publish://send-error")
                 .routeId("publish://send-error")
@@ -399,6 +643,14 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
                 .bean(ErrorMessageRepository.class, "save")
                 .end();
 
+        // 批量发送失败监听路由
+        from("publish://error-sending-resolve-batch")
+                .routeId("publish://error-sending-resolve-batch")
+                .transacted()
+                .to("publish://error-sending-resolve-merge")
+                .bean(ErrorMessageRepository.class, "saveAll")
+                .end();
+
         // 发送成功监听路由
         from("publish://success-sending-resolve")
                 .routeId("publish://success-sending-resolve")
@@ -432,12 +684,15 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
                 .bean(EventsInfo.class, "getAllEvents")
                 .split(new SplitList()).parallelProcessing()
                     .setProperty("eventInfo", body())
+                    // 未到轮询时间的事件跳过(空闲退避)
+                    .filter(exchange -> messagePublishPolicy.due(exchange.getProperty("eventInfo", EventsInfo.Event.class).getEventName()))
                     .bean(ErrorMessageRepository.class, "findErrorMessageByEventLimitByCount(${exchange.properties.get(eventInfo).getEventName()}, 10)")
                     .setHeader("errorMessageCount", simple("${body.size}"))
                     .setProperty("errorEvents", body())
                     .process(exchange -> {
                         Integer errorMessageCount = (Integer) exchange.getIn().getHeader("errorMessageCount");
-                        exchange.getIn().setHeader("normalMessageCount", 100 - errorMessageCount);
+                        String region = exchange.getProperty("eventInfo", EventsInfo.Event.class).getEventName();
+                        exchange.getIn().setHeader("normalMessageCount", Math.max(messagePublishPolicy.batchSize(region) - errorMessageCount, 0));
                     })
                     .bean(EventMessageRepository.class, "findEventMessageByRegionLimitByCount(${exchange.properties.get(eventInfo).getEventName()}, ${header.normalMessageCount})")
                     .setProperty("normalEvents", body())
@@ -453,6 +708,7 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
                             if (normalEventsSize > 0 || errorEventsSize > 0) {
                                 log.info("调度发送{}, 正常数量{}, 错误数量{}", eventInfo.getEventName(), normalEventsSize, errorEventsSize);
                             }
+                            messagePublishPolicy.record(eventInfo.getEventName(), errorEventsSize, normalEventsSize);
                         } catch (Exception e) {
                             log.error("调度统计错误！");
                         }
@@ -461,9 +717,24 @@ public class MessageRouteConfiguration extends RouteBuilder implements Applicati
                         .to("publish://send-error")
                         .end()
                     .setBody(exchangeProperty("normalEvents"))
-                    .split(new SplitList()).parallelProcessing()
-                        .to("publish://send-normal")
-                        .end()
+                    .choice()
+                        .when(exchange -> batchPublish && !exchange.getIn().getBody(List.class).isEmpty())
+                            .to("publish://send-normal-batch")
+                        .endChoice()
+                        .otherwise()
+                            // 按事件配置的并发度逐条发送
+                            .process(exchange -> {
+                                EventsInfo.Event eventInfo = exchange.getProperty("eventInfo", EventsInfo.Event.class);
+                                List<?> normalEvents = exchange.getIn().getBody(List.class);
+                                messagePublishPolicy.publishEach(eventInfo.getEventName(), normalEvents, event ->
+                                        producerTemplate.send("publish://send-normal", sub -> {
+                                            sub.getIn().setBody(event);
+                                            sub.setProperty("eventInfo", eventInfo);
+                                        }));
+                            })
+                        .endChoice()
+                    .end()
+                    .end()
                     .end()
                 // 接收的需要复制自重发的事件
                 .setHeader("isCopyEvent", constant(true))
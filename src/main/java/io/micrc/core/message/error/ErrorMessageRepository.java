@@ -39,5 +39,7 @@ public interface ErrorMessageRepository extends JpaRepository<ErrorMessage, Long
 
     ErrorMessage findFirstByMessageIdAndGroupId(@Param("messageId")Long messageId, @Param("groupId")String groupId);
 
+    List<ErrorMessage> findAllByMessageIdInAndGroupId(@Param("messageIds")List<Long> messageIds, @Param("groupId")String groupId);
+
     void deleteByMessageIdAndGroupId(@Param("messageId")Long messageId, @Param("groupId")String groupId);
 }
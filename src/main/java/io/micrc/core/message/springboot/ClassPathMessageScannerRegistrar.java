@@ -6,6 +6,7 @@ import io.micrc.core.message.MessageRouteConfiguration;
 import io.micrc.core.message.MessageRouteConfiguration.EventsInfo;
 import io.micrc.core.message.MessageRouteConfiguration.EventsInfo.Event;
 import io.micrc.lib.FileUtils;
+import io.micrc.lib.JsonUtil;
 import lombok.SneakyThrows;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -110,6 +111,8 @@ class MessagePublisherScanner extends ClassPathBeanDefinitionScanner {
                 if (mappingList.isEmpty()) {
                     return;
                 }
+                // 预编译映射，映射错误在启动时暴露
+                mappingList.forEach(mapping -> JsonUtil.precompileTransform(mapping.getMappingPath()));
                 // 事件信息
                 Event event = Event.builder()
                         .topicName(eventInfo.topicName())
@@ -1,10 +1,14 @@
 package io.micrc.core.message.springboot;
 
+import io.micrc.core.annotations.message.MessageExecution;
+import io.micrc.core.message.EventCodec;
 import io.micrc.core.message.MessageConsumeExecutor;
 import io.micrc.core.message.MessageConsumeRouterExecution;
 import io.micrc.core.message.MessageRouteConfiguration;
+import io.micrc.core.message.store.MessagePublishPolicy;
 import io.micrc.core.message.store.MessagePublisherSchedule;
 import io.micrc.lib.JsonUtil;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.component.direct.DirectComponent;
 import org.apache.camel.spring.boot.CamelAutoConfiguration;
@@ -28,6 +32,7 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.env.MutablePropertySources;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.annotation.KafkaListenerAnnotationBeanPostProcessor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
@@ -35,6 +40,7 @@ import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.util.backoff.FixedBackOff;
 
+import java.lang.reflect.Method;
 import java.util.*;
 
 
@@ -52,6 +58,7 @@ import java.util.*;
 @Import({
         MessageRouteConfiguration.class,
         MessagePublisherSchedule.class,
+        MessagePublishPolicy.class,
         MessageConsumeRouterExecution.class,
         MessageConsumeExecutor.class
 })
@@ -59,6 +66,10 @@ import java.util.*;
 @EnableJpaRepositories(basePackages = {"io.micrc.core.message.store", "io.micrc.core.message.error"})
 public class MessageAutoConfiguration implements BeanFactoryPostProcessor, EnvironmentAware {
 
+    private static final String LISTENER_CONTAINER_FACTORY = "kafkaListenerContainerFactory";
+
+    private static final String BATCH_LISTENER_CONTAINER_FACTORY = "kafkaBatchListenerContainerFactory";
+
     private Environment environment;
 
     @Override
@@ -92,7 +103,7 @@ public class MessageAutoConfiguration implements BeanFactoryPostProcessor, Envir
     private static void registerContainerFactoryAndTemplate(@NotNull ConfigurableListableBeanFactory beanFactory, String server, Properties properties, String provider) {
         if ("public".equalsIgnoreCase(provider)) {
             provider = "";
-            beanFactory.destroyBean("kafkaListenerContainerFactory", ConcurrentKafkaListenerContainerFactory.class);
+            beanFactory.destroyBean(LISTENER_CONTAINER_FACTORY, ConcurrentKafkaListenerContainerFactory.class);
             beanFactory.destroyBean("kafkaTemplate", KafkaTemplate.class);
         } else {
             provider = "-" + provider;
@@ -101,33 +112,43 @@ public class MessageAutoConfiguration implements BeanFactoryPostProcessor, Envir
         HashMap<String, Object> producerMap = new HashMap<>();
         producerMap.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, server);
         producerMap.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.StringSerializer");
-        producerMap.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.StringSerializer");
+        // 消息体由EventCodec编码为字节
+        producerMap.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.ByteArraySerializer");
         producerMap.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, properties.getProperty("spring.kafka.producer.properties.enable.idempotence"));
         producerMap.put(ProducerConfig.RETRIES_CONFIG, properties.getProperty("spring.kafka.producer.retries"));
         producerMap.put(ProducerConfig.ACKS_CONFIG, properties.getProperty("spring.kafka.producer.acks"));
        // producerMap.put(ProducerConfig.BATCH_SIZE_CONFIG, properties.getProperty("spring.kafka.producer.batch-size"));
        // producerMap.put(ProducerConfig.BUFFER_MEMORY_CONFIG, properties.getProperty("spring.kafka.producer.buffer-memory"));
         producerMap.put(ProducerConfig.MAX_REQUEST_SIZE_CONFIG, properties.getProperty("spring.kafka.producer.max.request.size"));
-        ProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(producerMap);
-        KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        ProducerFactory<String, byte[]> producerFactory = new DefaultKafkaProducerFactory<>(producerMap);
+        KafkaTemplate<String, byte[]> kafkaTemplate = new KafkaTemplate<>(producerFactory);
         beanFactory.registerSingleton("kafkaTemplate" + provider, kafkaTemplate);
         // KafkaListenerContainerFactory
         HashMap<String, Object> consumerMap = new HashMap<>();
         consumerMap.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, server);
         consumerMap.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.StringDeserializer");
-        consumerMap.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.StringDeserializer");
+        // 消息体按codec头解码
+        consumerMap.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.ByteArrayDeserializer");
         consumerMap.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, properties.getProperty("spring.kafka.consumer.enable-auto-commit"));
         // consumerMap.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, properties.getProperty("spring.kafka.consumer.max-poll-records"));
         consumerMap.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, properties.getProperty("spring.kafka.consumer.max.partition.fetch.bytes"));
         consumerMap.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, properties.getProperty("spring.kafka.consumer.auto-offset-reset"));
         consumerMap.put(ConsumerConfig.GROUP_ID_CONFIG, properties.getProperty("spring.kafka.consumer.group-id"));
-        ConsumerFactory<String, String> consumerFactory1 = new DefaultKafkaConsumerFactory<>(consumerMap);
-        ConcurrentKafkaListenerContainerFactory<String, String> concurrentKafkaListenerContainerFactory = new ConcurrentKafkaListenerContainerFactory<>();
+        ConsumerFactory<String, byte[]> consumerFactory1 = new DefaultKafkaConsumerFactory<>(consumerMap);
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> concurrentKafkaListenerContainerFactory = new ConcurrentKafkaListenerContainerFactory<>();
         concurrentKafkaListenerContainerFactory.setConsumerFactory(consumerFactory1);
         concurrentKafkaListenerContainerFactory.setConcurrency(Integer.valueOf(properties.getProperty("spring.kafka.consumer.batch.concurrency")));
         concurrentKafkaListenerContainerFactory.getContainerProperties().setAckMode(ContainerProperties.AckMode.valueOf(properties.getProperty("spring.kafka.listener.ack-mode")));
         concurrentKafkaListenerContainerFactory.setCommonErrorHandler(beanFactory.getBean(DefaultErrorHandler.class));
-        beanFactory.registerSingleton("kafkaListenerContainerFactory" + provider, concurrentKafkaListenerContainerFactory);
+        beanFactory.registerSingleton(LISTENER_CONTAINER_FACTORY + provider, concurrentKafkaListenerContainerFactory);
+        // 批量接收，监听器以List<ConsumerRecord>接收一次拉取的消息，整批处理完成后确认一次
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> batchKafkaListenerContainerFactory = new ConcurrentKafkaListenerContainerFactory<>();
+        batchKafkaListenerContainerFactory.setConsumerFactory(consumerFactory1);
+        batchKafkaListenerContainerFactory.setConcurrency(Integer.valueOf(properties.getProperty("spring.kafka.consumer.batch.concurrency")));
+        batchKafkaListenerContainerFactory.setBatchListener(true);
+        batchKafkaListenerContainerFactory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        batchKafkaListenerContainerFactory.setCommonErrorHandler(beanFactory.getBean(DefaultErrorHandler.class));
+        beanFactory.registerSingleton(BATCH_LISTENER_CONTAINER_FACTORY + provider, batchKafkaListenerContainerFactory);
     }
 
     @NotNull
@@ -150,6 +171,39 @@ public class MessageAutoConfiguration implements BeanFactoryPostProcessor, Envir
         return providersString.split(",");
     }
 
+    /**
+     * 批量接收监听器选择批量容器工厂
+     * 以List<ConsumerRecord>接收的@MessageExecution监听方法，@KafkaListener中的kafkaListenerContainerFactory[-provider]
+     * (未指定时为kafkaListenerContainerFactory)替换为同一消息服务的kafkaBatchListenerContainerFactory[-provider]，
+     * 监听方法只需声明批量参数，不需要声明批量工厂名称。指定了其他工厂的监听方法保持不变
+     *
+     * @return  annotation enhancer
+     */
+    @Bean
+    public static KafkaListenerAnnotationBeanPostProcessor.AnnotationEnhancer batchListenerContainerFactoryEnhancer() {
+        return (attributes, element) -> {
+            if (!(element instanceof Method) || !isBatchListener((Method) element)) {
+                return attributes;
+            }
+            String containerFactory = Optional.ofNullable((String) attributes.get("containerFactory")).orElse("");
+            if (containerFactory.isEmpty()) {
+                containerFactory = LISTENER_CONTAINER_FACTORY;
+            }
+            if (!containerFactory.startsWith(LISTENER_CONTAINER_FACTORY)) {
+                return attributes;
+            }
+            Map<String, Object> enhanced = new HashMap<>(attributes);
+            enhanced.put("containerFactory",
+                    BATCH_LISTENER_CONTAINER_FACTORY + containerFactory.substring(LISTENER_CONTAINER_FACTORY.length()));
+            return enhanced;
+        };
+    }
+
+    private static boolean isBatchListener(Method method) {
+        return method.isAnnotationPresent(MessageExecution.class)
+                && Arrays.stream(method.getParameterTypes()).anyMatch(List.class::isAssignableFrom);
+    }
+
     @Bean("clean")
     public DirectComponent clean() {
         DirectComponent clean = new DirectComponent();
@@ -174,6 +228,11 @@ public class MessageAutoConfiguration implements BeanFactoryPostProcessor, Envir
         return subscribe;
     }
 
+    @Bean
+    public MeterBinder eventCodecMetrics() {
+        return EventCodec.metrics();
+    }
+
     @Bean
     @Primary
     public DefaultErrorHandler deadLetterPublishingRecoverer(@Qualifier(value = "kafkaTemplate") KafkaTemplate<?, ?> kafkaTemplate) {
@@ -44,6 +44,11 @@ public class EventMessage implements Serializable {
 
     private String status;
 
+    /**
+     * 预约发送时间，为空时立即发送
+     */
+    private Long appointmentTime;
+
     /**
      * 原始映射
      */
@@ -68,5 +73,6 @@ public class EventMessage implements Serializable {
         this.createTime = eventMessage.getCreateTime();
         this.content = eventMessage.getContent();
         this.region = eventMessage.getRegion();
+        this.appointmentTime = eventMessage.getAppointmentTime();
     }
 }
@@ -1,6 +1,7 @@
 package io.micrc.core.message.store;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -23,13 +24,27 @@ public interface EventMessageRepository extends JpaRepository<EventMessage, Long
                     "where " +
                     "ms.status ='WAITING' " +
                     "and ms.region = :region " +
-                    "and (json_extract(ms.content,'$.event.appointmentTime') is null or json_extract(ms.content,'$.event.appointmentTime') < UNIX_TIMESTAMP() * 1000) " +
                     "and ms.original_topic is null " +
+                    "and (ms.appointment_time is null or ms.appointment_time < UNIX_TIMESTAMP() * 1000) " +
                     "order by ms.create_time asc " +
                     "limit :count for update nowait")
     List<EventMessage> findEventMessageByRegionLimitByCount(
             @Param(value = "region") String region, @Param(value = "count") Integer count);
 
+    /**
+     * 事件待发送积压数量
+     *
+     * @param region    region
+     * @return          count
+     */
+    @Query(nativeQuery = true,
+            value = "select count(1) from message_message_store ms " +
+                    "where " +
+                    "ms.status ='WAITING' " +
+                    "and ms.region = :region " +
+                    "and ms.original_topic is null")
+    long countWaitingByRegion(@Param(value = "region") String region);
+
     @Query(nativeQuery = true,
             value = "select ms.* from message_message_store ms " +
                     "where " +
@@ -77,4 +92,16 @@ public interface EventMessageRepository extends JpaRepository<EventMessage, Long
             value = "select ms.message_id from message_message_store ms " +
                     "where ms.message_id in :messageIds")
     List<Long> findUnRemoveIdsByMessageIds(@Param(value = "messageIds") List<Long> messageIds);
+
+    /**
+     * 批量标记已发送
+     *
+     * @param messageIds    messageIds
+     * @return              updated count
+     */
+    @Modifying
+    @Query(nativeQuery = true,
+            value = "update message_message_store set status = 'SENT' " +
+                    "where message_id in :messageIds")
+    int updateStatusSentByMessageIds(@Param(value = "messageIds") List<Long> messageIds);
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -24,6 +25,16 @@ public interface IdempotentMessageRepository extends JpaRepository<IdempotentMes
     @Lock(value = LockModeType.PESSIMISTIC_WRITE)
     IdempotentMessage findFirstBySequenceAndReceiver(Long sequence, String receiver);
 
+    /**
+     * 批量接收时一次查询并锁定整批消息的幂等记录
+     *
+     * @param sequences sequences
+     * @param receiver  receiver
+     * @return          idempotent messages
+     */
+    @Lock(value = LockModeType.PESSIMISTIC_WRITE)
+    List<IdempotentMessage> findAllBySequenceInAndReceiver(Collection<Long> sequences, String receiver);
+
     /**
      * 查找所有发送方
      *
@@ -0,0 +1,263 @@
+package io.micrc.core.message.store;
+
+import io.micrc.core.message.MessageRouteConfiguration.EventsInfo;
+import io.micrc.lib.ExecutorUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 消息推送自适应策略
+ * 各事件(region)独立维护批量大小、并发度与轮询时间：取满一批时持续排空，取空时按指数退避延后下次轮询。
+ * 推送调度由分布式锁保证同一时刻只有一个节点执行，下次轮询时间、连续取空次数与积压数量保存在redis中，
+ * 调度锁转移到其他节点后按相同的退避状态继续，redis不可用时退化为节点内状态
+ *
+ * @author weiguan
+ * @date 2024-07-08 10:36
+ * @since 0.0.1
+ */
+@Slf4j
+public class MessagePublishPolicy implements MeterBinder {
+
+    /**
+     * 共享轮询状态键前缀，后接应用名与事件名
+     */
+    public static final String STATE_KEY_PREFIX = "MESSAGE:PUBLISH:";
+
+    private static final String NEXT_POLL_TIME = "nextPollTime";
+
+    private static final String EMPTY_TIMES = "emptyTimes";
+
+    private static final String BACKLOG = "backlog";
+
+    private static final String BACKLOG_TIME = "backlogTime";
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private EventMessageRepository eventMessageRepository;
+
+    @Resource(name = "memoryDbTemplate")
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    private final Map<String, RegionState> regions = new ConcurrentHashMap<>();
+
+    private final Map<String, ExecutorService> executors = new ConcurrentHashMap<>();
+
+    /**
+     * 事件单次拉取的消息数量(含错误消息)
+     *
+     * @param region    region
+     * @return          batch size
+     */
+    public int batchSize(String region) {
+        return environment.getProperty("micrc.message.publish.regions." + region + ".batch-size", Integer.class,
+                environment.getProperty("micrc.message.publish.batch-size", Integer.class, 100));
+    }
+
+    /**
+     * 事件逐条发送时的并发度
+     *
+     * @param region    region
+     * @return          concurrency
+     */
+    public int concurrency(String region) {
+        return environment.getProperty("micrc.message.publish.regions." + region + ".concurrency", Integer.class,
+                environment.getProperty("micrc.message.publish.concurrency", Integer.class, 10));
+    }
+
+    public long minDelay() {
+        return environment.getProperty("micrc.message.publish.min-delay", Long.class, 1000L);
+    }
+
+    public long maxDelay() {
+        return environment.getProperty("micrc.message.publish.max-delay", Long.class, 30000L);
+    }
+
+    /**
+     * 单次调度持续排空的最长时间，超过后释放调度锁等待下次调度
+     *
+     * @return  max drain millis
+     */
+    public long maxDrain() {
+        return environment.getProperty("micrc.message.publish.max-drain", Long.class, 10000L);
+    }
+
+    /**
+     * 事件是否到达轮询时间，以共享状态为准并刷新节点内状态
+     *
+     * @param region    region
+     * @return          due
+     */
+    public boolean due(String region) {
+        RegionState state = state(region);
+        try {
+            Map<Object, Object> shared = redisTemplate.opsForHash().entries(stateKey(region));
+            state.nextPollTime = shared.containsKey(NEXT_POLL_TIME) ? ((Number) shared.get(NEXT_POLL_TIME)).longValue() : 0L;
+            state.emptyTimes = shared.containsKey(EMPTY_TIMES) ? ((Number) shared.get(EMPTY_TIMES)).intValue() : 0;
+            state.backlogTime = shared.containsKey(BACKLOG_TIME) ? ((Number) shared.get(BACKLOG_TIME)).longValue() : 0L;
+        } catch (RuntimeException e) {
+            log.warn("推送状态读取失败，使用节点内状态：{}", region, e);
+        }
+        return state.nextPollTime <= System.currentTimeMillis();
+    }
+
+    /**
+     * 是否存在取满一批的事件，存在时调度继续排空
+     *
+     * @return  drain
+     */
+    public boolean draining() {
+        return regions.values().stream().anyMatch(state -> state.full);
+    }
+
+    /**
+     * 记录一次拉取结果并计算下次轮询时间，连续取空次数以本次轮询前读取的共享状态为基础
+     *
+     * @param region        region
+     * @param errorCount    error message count
+     * @param normalCount   normal message count
+     */
+    public void record(String region, int errorCount, int normalCount) {
+        RegionState state = state(region);
+        int fetched = errorCount + normalCount;
+        long now = System.currentTimeMillis();
+        state.drained.addAndGet(fetched);
+        state.full = fetched >= batchSize(region);
+        if (state.full) {
+            state.emptyTimes = 0;
+            state.nextPollTime = now;
+        } else if (fetched > 0) {
+            state.emptyTimes = 0;
+            state.nextPollTime = now + minDelay();
+        } else {
+            state.emptyTimes = Math.min(state.emptyTimes + 1, 16);
+            state.nextPollTime = now + Math.min(minDelay() << (state.emptyTimes - 1), maxDelay());
+        }
+        Map<Object, Object> shared = new HashMap<>();
+        shared.put(NEXT_POLL_TIME, state.nextPollTime);
+        shared.put(EMPTY_TIMES, state.emptyTimes);
+        // 积压只取自实际计数：首次取空时统计(积压已排空，计数开销小)，拉取到消息时每个最大轮询间隔至多统计一次，
+        // 排空循环中不逐批计数，持续取空期间积压不变
+        if (state.emptyTimes == 1 || (fetched > 0 && now - state.backlogTime >= maxDelay())) {
+            state.backlogTime = now;
+            shared.put(BACKLOG, eventMessageRepository.countWaitingByRegion(region));
+            shared.put(BACKLOG_TIME, now);
+        }
+        try {
+            redisTemplate.opsForHash().putAll(stateKey(region), shared);
+            redisTemplate.expire(stateKey(region), maxDelay() * 10, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            log.warn("推送状态保存失败：{}", region, e);
+        }
+    }
+
+    /**
+     * 最近一次统计的待发送消息数量，尚未统计时为NaN
+     *
+     * @param region    region
+     * @return          backlog
+     */
+    public double backlog(String region) {
+        try {
+            Object backlog = redisTemplate.opsForHash().get(stateKey(region), BACKLOG);
+            return null == backlog ? Double.NaN : ((Number) backlog).doubleValue();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * 按事件并发度逐条发送，全部完成后返回
+     *
+     * @param region    region
+     * @param events    events
+     * @param sender    sender
+     */
+    public void publishEach(String region, List<?> events, Consumer<Object> sender) {
+        ExecutorService executor = executors.computeIfAbsent(region, this::createExecutor);
+        List<Future<?>> futures = events.stream()
+                .map(event -> executor.submit(() -> sender.accept(event)))
+                .collect(Collectors.toList());
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("消息发送失败：{}", region, e.getCause());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        EventsInfo.getAllEvents().forEach(event -> {
+            String region = event.getEventName();
+            Gauge.builder("micrc.message.publish.backlog", this, policy -> policy.backlog(region))
+                    .tag("region", region)
+                    .description("最近一次统计的待发送消息积压数量")
+                    .register(registry);
+            FunctionCounter.builder("micrc.message.publish.drained", state(region).drained, AtomicLong::get)
+                    .tag("region", region)
+                    .description("本节点已拉取发送的消息数量")
+                    .register(registry);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ExecutorService::shutdown);
+    }
+
+    private RegionState state(String region) {
+        return regions.computeIfAbsent(region, key -> new RegionState());
+    }
+
+    private String stateKey(String region) {
+        return STATE_KEY_PREFIX + environment.getProperty("spring.application.name") + ":" + region;
+    }
+
+    /**
+     * 队列容纳一次拉取的全部消息，超出时由提交线程发送
+     */
+    private ExecutorService createExecutor(String region) {
+        return ExecutorUtil.newBoundedExecutor("publish-" + region + "-", concurrency(region), batchSize(region),
+                ExecutorUtil.isVirtual(environment.getProperty(ExecutorUtil.EXECUTION_MODE)),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 节点内状态，full只在持有调度锁的节点的单次调度内使用，其余字段为共享状态的本地副本
+     */
+    private static class RegionState {
+
+        private final AtomicLong drained = new AtomicLong();
+
+        private volatile boolean full;
+
+        private volatile int emptyTimes;
+
+        private volatile long nextPollTime;
+
+        private volatile long backlogTime;
+    }
+}
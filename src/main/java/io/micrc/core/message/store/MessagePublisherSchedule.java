@@ -32,13 +32,23 @@ public class MessagePublisherSchedule {
     @EndpointInject
     private ProducerTemplate producerTemplate;
 
-    @Scheduled(initialDelay = 1000, fixedDelay = 1000)
+    @Autowired
+    private MessagePublishPolicy messagePublishPolicy;
+
+    /**
+     * 自适应推送，存在取满一批的事件时持续排空，直至超过最长排空时间
+     * 各事件的空闲退避由推送策略在路由中判断
+     */
+    @Scheduled(initialDelay = 1000, fixedDelayString = "${micrc.message.publish.min-delay:1000}")
     @SchedulerLock(name = "MessagePublisherSchedule")
     public void adapt() {
         if (!isStarted("eventstore://sender")) {
             return;
         }
-        producerTemplate.sendBody("eventstore://sender", System.currentTimeMillis());
+        long deadline = System.currentTimeMillis() + messagePublishPolicy.maxDrain();
+        do {
+            producerTemplate.sendBody("eventstore://sender", System.currentTimeMillis());
+        } while (messagePublishPolicy.draining() && System.currentTimeMillis() < deadline);
     }
 
     @Scheduled(initialDelay = 1000, fixedDelay = 1000)
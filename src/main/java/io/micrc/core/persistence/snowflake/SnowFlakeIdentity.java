@@ -1,9 +1,12 @@
 package io.micrc.core.persistence.snowflake;
 
 import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * 雪花算法ID生成器
+ * 时间戳与序列号打包于单个AtomicLong中以CAS分配，仅在当前毫秒序列号耗尽时等待下一毫秒
  *
  * @author weiguan
  * @since 0.0.1
@@ -36,7 +39,12 @@ public class SnowFlakeIdentity {
      */
     public static final long MAX_MACHINE_NUMBER = ~(-1L << MACHINE_NUMBER_BITS);
 
-    private static SnowFlakeIdentity instance;
+    /**
+     * 可容忍的时钟回拨毫秒数，回拨期间沿用上次时间戳继续分配序列号，序列号耗尽且回拨超过该值时拒绝生成
+     */
+    private static final long MAX_BACKWARD_MILLIS = 5000L;
+
+    private static volatile SnowFlakeIdentity instance;
 
     /**
      * 机器码（由业务服务初始化）
@@ -44,18 +52,21 @@ public class SnowFlakeIdentity {
     public static int machineNumber = -1;
 
     /**
-     * 历史时间戳，默认从当前开始，后续自增
+     * 上次分配的状态，高位为相对基准值的时间戳，低9位为该毫秒内最后分配的序列号
      */
-    private long pastTimeStamp = System.currentTimeMillis();
+    private final AtomicLong state = new AtomicLong();
 
     /**
-     * 当前序列号，默认从0开始，后续自增
+     * 毫秒时钟，测试时替换以模拟时钟回拨
      */
-    private long currentSequence = 0;
-
+    private final LongSupplier clock;
 
     private SnowFlakeIdentity() {
+        this(System::currentTimeMillis);
+    }
 
+    SnowFlakeIdentity(LongSupplier clock) {
+        this.clock = clock;
     }
 
     public static SnowFlakeIdentity getInstance() {
@@ -78,16 +89,82 @@ public class SnowFlakeIdentity {
      *
      * @return  nextId
      */
-    public synchronized long nextId() {
-        if (currentSequence > MAX_SEQUENCE) {
-            pastTimeStamp++;
-            currentSequence = 0;
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long next = reserve(current, 1);
+            if (next < 0) {
+                awaitNextMillis(current);
+            } else if (state.compareAndSet(current, next)) {
+                return compose(next >>> SEQUENCE_BITS, next & MAX_SEQUENCE);
+            }
         }
-        while (pastTimeStamp >= System.currentTimeMillis()) {
-            // wait time go
+    }
+
+    /**
+     * 批量获取ID，每次CAS分配当前毫秒内尽可能多的连续序列号
+     *
+     * @param n number of ids
+     * @return  ids
+     */
+    public long[] nextIds(int n) {
+        long[] ids = new long[n];
+        int filled = 0;
+        while (filled < n) {
+            long current = state.get();
+            long next = reserve(current, n - filled);
+            if (next < 0) {
+                awaitNextMillis(current);
+                continue;
+            }
+            if (!state.compareAndSet(current, next)) {
+                continue;
+            }
+            long timestamp = next >>> SEQUENCE_BITS;
+            long last = next & MAX_SEQUENCE;
+            long first = (current >>> SEQUENCE_BITS) == timestamp ? (current & MAX_SEQUENCE) + 1 : 0;
+            for (long sequence = first; sequence <= last; sequence++) {
+                ids[filled++] = compose(timestamp, sequence);
+            }
         }
-        return (pastTimeStamp - TIMESTAMP_DATUM) << MACHINE_NUMBER_BITS << SEQUENCE_BITS
-                | currentSequence++ << MACHINE_NUMBER_BITS
+        return ids;
+    }
+
+    /**
+     * 计算分配至多count个序列号后的状态
+     *
+     * @param current   current state
+     * @param count     count
+     * @return          next state, -1 when sequence exhausted
+     */
+    private long reserve(long current, int count) {
+        long lastTimestamp = current >>> SEQUENCE_BITS;
+        long now = clock.getAsLong() - TIMESTAMP_DATUM;
+        if (now > lastTimestamp) {
+            return now << SEQUENCE_BITS | Math.min(count - 1, MAX_SEQUENCE);
+        }
+        // 同一毫秒或时钟回拨，沿用上次时间戳
+        long available = MAX_SEQUENCE - (current & MAX_SEQUENCE);
+        if (available == 0) {
+            return -1;
+        }
+        return current + Math.min(count, available);
+    }
+
+    private void awaitNextMillis(long current) {
+        long lastTimestamp = current >>> SEQUENCE_BITS;
+        long backward = lastTimestamp - (clock.getAsLong() - TIMESTAMP_DATUM);
+        if (backward > MAX_BACKWARD_MILLIS) {
+            throw new IllegalStateException("Clock moved backwards " + backward + "ms, refuse to generate id.");
+        }
+        while (clock.getAsLong() - TIMESTAMP_DATUM <= lastTimestamp) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static long compose(long timestamp, long sequence) {
+        return timestamp << MACHINE_NUMBER_BITS << SEQUENCE_BITS
+                | sequence << MACHINE_NUMBER_BITS
                 | machineNumber;
     }
 }
@@ -0,0 +1,48 @@
+package io.micrc.core.persistence.springboot;
+
+import io.micrc.core.persistence.ConnectionLimitingDataSource;
+import io.micrc.lib.ExecutorUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * 数据源连接限流
+ * micrc.datasource.limiter.permits大于0时，以信号量包装数据源。虚拟线程模式下默认许可数为连接池最大连接数
+ *
+ * @author weiguan
+ * @date 2024-07-18 11:20
+ * @since 0.0.1
+ */
+@Slf4j
+public class DataSourceLimiterPostProcessor implements BeanPostProcessor, EnvironmentAware {
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (!(bean instanceof DataSource) || bean instanceof ConnectionLimitingDataSource) {
+            return bean;
+        }
+        boolean virtual = ExecutorUtil.isVirtual(environment.getProperty(ExecutorUtil.EXECUTION_MODE));
+        int defaultPermits = virtual
+                ? environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10) : 0;
+        int permits = environment.getProperty("micrc.datasource.limiter.permits", Integer.class, defaultPermits);
+        if (permits <= 0) {
+            return bean;
+        }
+        long acquireTimeout = environment.getProperty("micrc.datasource.limiter.acquire-timeout", Long.class,
+                environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30000L));
+        log.info("数据源连接限流{}：许可{}，等待{}ms", beanName, permits, acquireTimeout);
+        return new ConnectionLimitingDataSource((DataSource) bean, permits, acquireTimeout);
+    }
+}
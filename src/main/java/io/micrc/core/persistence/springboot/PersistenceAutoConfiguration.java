@@ -61,6 +61,16 @@ public class PersistenceAutoConfiguration {
         return factory;
     }
 
+    /**
+     * 数据源连接限流，未配置许可且非虚拟线程模式时不包装数据源
+     *
+     * @return  bean post processor
+     */
+    @Bean
+    public static DataSourceLimiterPostProcessor dataSourceLimiterPostProcessor() {
+        return new DataSourceLimiterPostProcessor();
+    }
+
     @Bean("memoryDbTemplate")
     public RedisTemplate<Object, Object> memoryDbTemplate() {
         RedisTemplate<Object, Object> template = new RedisTemplate<>();
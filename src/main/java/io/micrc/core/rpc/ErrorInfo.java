@@ -2,6 +2,8 @@ package io.micrc.core.rpc;
 
 import lombok.Data;
 
+import java.util.Map;
+
 /**
  * 异常信息
  *
@@ -12,6 +14,16 @@ import lombok.Data;
 @Data
 public class ErrorInfo {
 
+    /**
+     * 系统错误编码
+     */
+    public static final String SYSTEM_ERROR_CODE = "999999999";
+
+    /**
+     * 未声明错误编码的业务执行错误编码
+     */
+    public static final String BUSINESS_ERROR_CODE = "888888888";
+
     /**
      * 执行过程中的错误编码
      */
@@ -21,4 +33,9 @@ public class ErrorInfo {
      * 错误消息
      */
     private String errorMessage;
+
+    /**
+     * 批量执行时各失败批次项的错误，按批次项序号记录
+     */
+    private Map<Integer, ErrorInfo> itemErrors;
 }
@@ -0,0 +1,166 @@
+package io.micrc.core.rpc;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.Exchange;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 请求内集成结果备忘
+ * 以(协议或仓库、方法、规范化参数)为键记录集成原始结果，同一请求内相同的集成直接使用已有结果。
+ * 只用于幂等的查询与读取集成，技术执行等可能有副作用的集成不经过备忘。
+ * 备忘保存在交换属性中，批量、分割产生的交换副本共享同一备忘，随交换结束释放，不跨请求
+ *
+ * @author weiguan
+ * @date 2024-07-17 09:40
+ * @since 0.0.1
+ */
+@Slf4j
+public final class IntegrationMemo {
+
+    /**
+     * 交换中备忘的属性名
+     */
+    public static final String INTEGRATION_MEMO = "integrationMemo";
+
+    /**
+     * 当前集成是否命中备忘
+     */
+    public static final String MEMO_HIT = "integrationMemoHit";
+
+    /**
+     * 当前未命中集成的备忘键，集成完成后记录结果时使用
+     */
+    private static final String MEMO_KEY = "integrationMemoKey";
+
+    private static final String[] ROUTES = {"businesses", "presentations", "derivations"};
+
+    /**
+     * 备忘中空结果的占位
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * 参数规范化，Map按键排序后序列化，保证参数顺序不同的相同集成得到相同的键
+     */
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private static final Map<String, LongAdder> HITS = new ConcurrentHashMap<>();
+
+    private static final Map<String, LongAdder> MISSES = new ConcurrentHashMap<>();
+
+    static {
+        for (String route : ROUTES) {
+            HITS.put(route, new LongAdder());
+            MISSES.put(route, new LongAdder());
+        }
+    }
+
+    private IntegrationMemo() {
+    }
+
+    /**
+     * 创建请求的备忘，由服务路由入口放入交换属性
+     *
+     * @return  备忘
+     */
+    public static Map<String, Object> create() {
+        return new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 查找集成结果，命中时以备忘结果作为消息体，未命中时记下备忘键等待集成完成
+     *
+     * @param exchange  exchange
+     * @param route     服务路由类型
+     * @param target    协议或仓库
+     * @param method    方法
+     * @param params    集成参数
+     * @return          是否命中
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean lookup(Exchange exchange, String route, String target, String method, Object params) {
+        Map<String, Object> memo = (Map<String, Object>) exchange.getProperty(INTEGRATION_MEMO);
+        if (null == memo) {
+            memo = create();
+            exchange.setProperty(INTEGRATION_MEMO, memo);
+        }
+        String key = target + '|' + method + '|' + canonical(params);
+        Object result = memo.get(key);
+        if (null != result) {
+            counter(HITS, route).increment();
+            log.info("集成命中备忘：{}|{}", target, method);
+            exchange.getIn().setBody(NULL == result ? null : result);
+            exchange.setProperty(MEMO_HIT, true);
+            return true;
+        }
+        counter(MISSES, route).increment();
+        exchange.setProperty(MEMO_KEY, key);
+        exchange.setProperty(MEMO_HIT, false);
+        return false;
+    }
+
+    /**
+     * 记录未命中集成的原始结果，命中时不做处理
+     *
+     * @param exchange  exchange
+     */
+    @SuppressWarnings("unchecked")
+    public static void remember(Exchange exchange) {
+        String key = (String) exchange.removeProperty(MEMO_KEY);
+        Map<String, Object> memo = (Map<String, Object>) exchange.getProperty(INTEGRATION_MEMO);
+        if (null == key || null == memo) {
+            return;
+        }
+        Object body = exchange.getIn().getBody();
+        // 流式结果只能读取一次，转为字符串后再记录
+        if (body instanceof byte[]) {
+            body = new String((byte[]) body);
+            exchange.getIn().setBody(body);
+        }
+        memo.put(key, null == body ? NULL : body);
+    }
+
+    /**
+     * 备忘命中、未命中次数指标，按服务路由类型区分
+     *
+     * @return  MeterBinder
+     */
+    public static MeterBinder metrics() {
+        return registry -> {
+            for (String route : ROUTES) {
+                FunctionCounter.builder("micrc.integration.memo", HITS.get(route), LongAdder::sum)
+                        .description("请求内集成结果备忘")
+                        .tag("route", route).tag("result", "hit")
+                        .register(registry);
+                FunctionCounter.builder("micrc.integration.memo", MISSES.get(route), LongAdder::sum)
+                        .description("请求内集成结果备忘")
+                        .tag("route", route).tag("result", "miss")
+                        .register(registry);
+            }
+        };
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counters, String route) {
+        return counters.computeIfAbsent(route, r -> new LongAdder());
+    }
+
+    private static String canonical(Object params) {
+        if (null == params || params instanceof String) {
+            return String.valueOf(params);
+        }
+        try {
+            return CANONICAL_MAPPER.writeValueAsString(CANONICAL_MAPPER.convertValue(params, Object.class));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalStateException("the integration params can not normalize: " + e.getMessage(), e);
+        }
+    }
+}
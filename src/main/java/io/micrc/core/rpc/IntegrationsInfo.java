@@ -1,5 +1,8 @@
 package io.micrc.core.rpc;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.github.fge.jsonschema.main.JsonSchema;
+import io.micrc.lib.JsonUtil;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
@@ -21,6 +24,15 @@ public class IntegrationsInfo {
     private static List<Integration> integrationsInfo = new ArrayList<>();
 
     public void add(Integration integration) {
+        // 注册时编译请求schema，集成参数校验不再重复解析协议。无法编译的协议任何参数都不能通过校验，启动时失败
+        if (null == integration.getRequestSchema() && null != integration.getProtocolContent()) {
+            try {
+                integration.setRequestSchema(JsonUtil.compileRequestSchema(integration.getProtocolContent()));
+            } catch (Exception e) {
+                throw new IllegalStateException("the integration protocol " + integration.getProtocolFilePath()
+                        + " request schema can not compile, please check the protocol: " + e.getMessage(), e);
+            }
+        }
         integrationsInfo.add(integration);
     }
 
@@ -65,5 +77,11 @@ public class IntegrationsInfo {
          * 协议内容
          */
         private String protocolContent;
+
+        /**
+         * 已编译的请求体schema，注册时由协议内容构造
+         */
+        @JsonIgnore
+        private JsonSchema requestSchema;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package io.micrc.core.rpc;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.micrc.core.AbstractRouteTemplateParamDefinition;
 import io.micrc.core.MicrcRouteBuilder;
 import io.micrc.lib.JsonUtil;
@@ -59,11 +60,14 @@ public class RpcRestRouteConfiguration extends MicrcRouteBuilder {
                     // 传递业务逻辑/交互逻辑的origin信息到衍生逻辑
                     String buffer = (String) exchange.getProperty("buffer");
                     String commandJson = (String) exchange.getProperty("commandJson");
+                    JsonNode commandNode = exchange.getProperty("commandNode", JsonNode.class);
                     String originHost = null;
                     if (buffer != null) {
                         originHost = (String) JsonUtil.readPath(buffer, "/_param/_originHost");
                     } else if (commandJson != null) {
                         originHost = (String) JsonUtil.readPath(commandJson, "/_originHost");
+                    } else if (commandNode != null) {
+                        originHost = (String) JsonUtil.readPath(commandNode, "/_originHost");
                     }
                     exchange.getIn().setHeader("origin", originHost);
                 })
@@ -1,6 +1,8 @@
 package io.micrc.core.rpc.springboot;
 
 import io.micrc.core.rpc.RpcRestRouteConfiguration;
+import io.micrc.lib.ExecutorUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Component;
 import org.apache.camel.RoutesBuilder;
@@ -17,6 +19,8 @@ import org.apache.camel.support.jsse.SSLContextParameters;
 import org.apache.camel.support.jsse.TrustManagersParameters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,6 +31,7 @@ import javax.net.ssl.X509TrustManager;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * rpc auto configuration，注册rpc路由组件，配置camel rest dsl
@@ -35,6 +40,7 @@ import java.util.Map;
  * @date 2022-09-08 21:45
  * @since 0.0.1
  */
+@Slf4j
 @Configuration
 @EnableAutoConfiguration(
         exclude = {
@@ -56,6 +62,25 @@ public class RpcAutoConfiguration {
     }
 
 
+    /**
+     * 虚拟线程模式下servlet请求在虚拟线程上执行，适配器路由与其中的ProducerTemplate调用阻塞时不占用平台线程
+     * JDK低于21时保持原有线程池
+     *
+     * @return  tomcat protocol handler customizer
+     */
+    @Bean
+    @ConditionalOnProperty(name = ExecutorUtil.EXECUTION_MODE, havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            ExecutorService executor = ExecutorUtil.newVirtualThreadPerTaskExecutor("http-virtual-");
+            if (null == executor) {
+                log.warn("当前JDK不支持虚拟线程，servlet请求仍使用平台线程池");
+                return;
+            }
+            protocolHandler.setExecutor(executor);
+        };
+    }
+
     @Bean("rest")
     public RestComponent rest() {
         RestComponent response = new RestComponent();
@@ -0,0 +1,149 @@
+package io.micrc.lib;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 执行线程工具
+ * 执行模式为virtual且运行在JDK21及以上时使用虚拟线程，否则使用平台守护线程。
+ * 编译目标为JDK11，虚拟线程API通过反射获取
+ *
+ * @author weiguan
+ * @date 2024-07-18 10:15
+ * @since 0.0.1
+ */
+public class ExecutorUtil {
+
+    /**
+     * 执行模式配置项，platform或virtual
+     */
+    public static final String EXECUTION_MODE = "micrc.execution.mode";
+
+    private static final Method OF_VIRTUAL;
+
+    private static final Method BUILDER_NAME;
+
+    private static final Method BUILDER_FACTORY;
+
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    /**
+     * 当前JDK是否支持虚拟线程
+     *
+     * @return  supported
+     */
+    public static boolean virtualThreadsSupported() {
+        return null != OF_VIRTUAL;
+    }
+
+    /**
+     * 执行模式是否为虚拟线程，JDK不支持时退回平台线程
+     *
+     * @param mode  执行模式
+     * @return      virtual
+     */
+    public static boolean isVirtual(String mode) {
+        return "virtual".equalsIgnoreCase(mode) && virtualThreadsSupported();
+    }
+
+    /**
+     * 线程工厂
+     *
+     * @param prefix    线程名前缀
+     * @param virtual   是否虚拟线程
+     * @return          thread factory
+     */
+    public static ThreadFactory threadFactory(String prefix, boolean virtual) {
+        if (virtual && virtualThreadsSupported()) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L);
+                return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("virtual thread factory can not create: " + e.getMessage(), e);
+            }
+        }
+        AtomicInteger number = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 有界线程池，线程数与等待队列均有上限，满时以RejectedExecutionException拒绝提交。虚拟线程模式下线程数可远大于CPU数
+     *
+     * @param prefix        线程名前缀
+     * @param threads       线程数
+     * @param queueCapacity 等待队列容量，必须大于0
+     * @param virtual       是否虚拟线程
+     * @return              thread pool
+     */
+    public static ThreadPoolExecutor newBoundedExecutor(String prefix, int threads, int queueCapacity, boolean virtual) {
+        return newBoundedExecutor(prefix, threads, queueCapacity, virtual, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 有界线程池，线程数与等待队列均有上限，满时按拒绝策略处理
+     *
+     * @param prefix        线程名前缀
+     * @param threads       线程数
+     * @param queueCapacity 等待队列容量，必须大于0
+     * @param virtual       是否虚拟线程
+     * @param rejection     拒绝策略，如CallerRunsPolicy由提交线程执行以形成背压
+     * @return              thread pool
+     */
+    public static ThreadPoolExecutor newBoundedExecutor(String prefix, int threads, int queueCapacity, boolean virtual,
+                                                        RejectedExecutionHandler rejection) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("the queue capacity of executor " + prefix + " must be positive. ");
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), threadFactory(prefix, virtual), rejection);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 每任务一个虚拟线程的执行器，用于替换servlet容器的请求线程池
+     *
+     * @param prefix    线程名前缀
+     * @return          executor，JDK不支持虚拟线程时返回null
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String prefix) {
+        if (!virtualThreadsSupported()) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory(prefix, true));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual thread executor can not create: " + e.getMessage(), e);
+        }
+    }
+}
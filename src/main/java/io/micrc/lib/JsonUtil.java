@@ -2,27 +2,36 @@ package io.micrc.lib;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.*;
 import com.fasterxml.jackson.databind.type.CollectionType;
-import com.github.fge.jsonpatch.JsonPatch;
-import com.github.fge.jsonpatch.JsonPatchException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
 import com.github.fge.jsonschema.main.JsonSchemaFactory;
-import com.github.fge.jsonschema.main.JsonValidator;
 import com.schibsted.spt.data.jslt.Expression;
 import com.schibsted.spt.data.jslt.Parser;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class JsonUtil {
 
@@ -30,7 +39,24 @@ public class JsonUtil {
 
     private static final ObjectMapper OBJECT_NULL_MAPPER = new ObjectMapper();
 
-    private static final JsonValidator JSON_VALIDATOR = JsonSchemaFactory.byDefault().getValidator();
+    private static final JsonSchemaFactory JSON_SCHEMA_FACTORY = JsonSchemaFactory.byDefault();
+
+    private static final int EXPRESSION_CACHE_SIZE = 2048;
+
+    /**
+     * 已编译的JSLT表达式，以映射内容为键。transform保留值为[],{},null的键，transAndCheck使用默认过滤，分开缓存
+     */
+    private static final Cache<String, Expression> TRANSFORM_EXPRESSIONS = Caffeine.newBuilder()
+            .maximumSize(EXPRESSION_CACHE_SIZE).recordStats().build();
+
+    private static final Cache<String, Expression> CHECK_EXPRESSIONS = Caffeine.newBuilder()
+            .maximumSize(EXPRESSION_CACHE_SIZE).recordStats().build();
+
+    /**
+     * 已编译的JSON Pointer，以路径为键
+     */
+    private static final Cache<String, JsonPointer> POINTERS = Caffeine.newBuilder()
+            .maximumSize(EXPRESSION_CACHE_SIZE).recordStats().build();
 
     static {
         OBJECT_MAPPER.setSerializationInclusion(Include.NON_NULL);
@@ -105,6 +131,35 @@ public class JsonUtil {
         }
     }
 
+    /**
+     * 流式读取JSON数组，迭代时逐个解析元素，不物化整个数组。内容为空或null时为空迭代
+     *
+     * @param json          JSON数组
+     * @param elementClass  元素类型
+     * @param <T>           元素类型
+     * @return              元素迭代器，迭代结束时关闭解析器
+     */
+    public static <T> Iterator<T> readArrayElements(String json, Class<T> elementClass) {
+        if (!StringUtils.hasText(json)) {
+            return Collections.emptyIterator();
+        }
+        try {
+            JsonParser parser = OBJECT_MAPPER.getFactory().createParser(json);
+            JsonToken token = parser.nextToken();
+            if (null == token || JsonToken.VALUE_NULL == token) {
+                parser.close();
+                return Collections.emptyIterator();
+            }
+            if (JsonToken.START_ARRAY != token) {
+                parser.close();
+                throw new IllegalStateException("the json is not array, can not read elements. ");
+            }
+            return new ArrayElementIterator<>(parser, OBJECT_MAPPER.readerFor(elementClass));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static <T> T writeObjectAsObject(Object object, Class<T> targetClass) {
         return writeValueAsObject(writeValueAsString(object), targetClass);
     }
@@ -125,6 +180,32 @@ public class JsonUtil {
         }
     }
 
+    public static JsonNode writeValueAsTree(Object object) {
+        return OBJECT_NULL_MAPPER.valueToTree(object);
+    }
+
+    public static <T> T writeTreeAsObject(JsonNode node, Class<T> targetClass) {
+        try {
+            return OBJECT_MAPPER.treeToValue(node, targetClass);
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static <T> T writeTreeAsObject(JsonNode node, JavaType javaType) {
+        try {
+            return OBJECT_MAPPER.readerFor(javaType).readValue(node);
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static JavaType constructType(Type type) {
+        return OBJECT_MAPPER.getTypeFactory().constructType(type);
+    }
+
     public static boolean validate(String string) {
         try {
             OBJECT_NULL_MAPPER.readTree(string);
@@ -136,12 +217,58 @@ public class JsonUtil {
         }
     }
 
+    public static Cache<String, Expression> transformExpressions() {
+        return TRANSFORM_EXPRESSIONS;
+    }
+
+    public static Cache<String, Expression> checkExpressions() {
+        return CHECK_EXPRESSIONS;
+    }
+
+    /**
+     * 预编译transform使用的映射，启动时暴露映射错误并预热缓存
+     *
+     * @param jslt  jslt
+     */
+    public static void precompileTransform(String jslt) {
+        if (StringUtils.hasText(jslt)) {
+            transformExpression(jslt);
+        }
+    }
+
+    /**
+     * 预编译transAndCheck、transAndValidate使用的映射，启动时暴露映射错误并预热缓存
+     *
+     * @param jslt  jslt
+     */
+    public static void precompileCheck(String jslt) {
+        if (StringUtils.hasText(jslt) && !jslt.startsWith("null") && !jslt.startsWith("{}")) {
+            checkExpression(jslt);
+        }
+    }
+
+    private static Expression transformExpression(String jslt) {
+        // 保留值为[],{},null的键
+        return TRANSFORM_EXPRESSIONS.get(jslt, key -> new Parser(new StringReader(key)).withObjectFilter("true").compile());
+    }
+
+    private static Expression checkExpression(String jslt) {
+        return CHECK_EXPRESSIONS.get(jslt, Parser::compileString);
+    }
+
     public static String transform(String jslt, Object object) {
-//                Expression expression = Parser.compileString(jslt);
-        Parser parser = new Parser(new StringReader(jslt)).withObjectFilter("true"); // 保留值为[],{},null的键
-        Expression expression = parser.compile();
-        JsonNode resultNode = expression.apply(JsonUtil.readTree(object));
-        return JsonUtil.writeValueAsStringRetainNull(resultNode);
+        return JsonUtil.writeValueAsStringRetainNull(transformTree(jslt, JsonUtil.readTree(object)));
+    }
+
+    /**
+     * 以已解析的树转换，结果为树，同一内容多次转换时只解析一次
+     *
+     * @param jslt  jslt
+     * @param node  node
+     * @return      result
+     */
+    public static JsonNode transformTree(String jslt, JsonNode node) {
+        return transformExpression(jslt).apply(node);
     }
 
     public static String transAndCheck(String jslt, String string, String openApi) {
@@ -149,22 +276,59 @@ public class JsonUtil {
             return jslt;
         }
         try {
-            Expression expression = Parser.compileString(jslt);
-            JsonNode resultNode = expression.apply(JsonUtil.readTree(string));
+            return transAndCheck(jslt, JsonUtil.readTree(string), openApi);
+        } catch (Exception e) {
+            //
+        }
+        return null;
+    }
+
+    public static String transAndCheck(String jslt, JsonNode node, String openApi) {
+        if (jslt.startsWith("null") || jslt.startsWith("{}")) {
+            return jslt;
+        }
+        JsonSchema schema = null;
+        if (StringUtils.hasText(openApi)) {
+            try {
+                schema = compileRequestSchema(openApi);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return transAndValidate(jslt, node, schema);
+    }
+
+    public static String transAndValidate(String jslt, String string, JsonSchema schema) {
+        if (jslt.startsWith("null") || jslt.startsWith("{}")) {
+            return jslt;
+        }
+        try {
+            return transAndValidate(jslt, JsonUtil.readTree(string), schema);
+        } catch (Exception e) {
+            //
+        }
+        return null;
+    }
+
+    /**
+     * 转换并以已编译的请求schema校验，schema为空(没有协议)时只检查结果非空
+     * 协议schema在集成注册时编译，无法编译时启动失败，不会以空schema退化为非空检查
+     *
+     * @param jslt      jslt
+     * @param node      node
+     * @param schema    已编译的请求schema
+     * @return          result
+     */
+    public static String transAndValidate(String jslt, JsonNode node, JsonSchema schema) {
+        if (jslt.startsWith("null") || jslt.startsWith("{}")) {
+            return jslt;
+        }
+        try {
+            Expression expression = checkExpression(jslt);
+            JsonNode resultNode = expression.apply(node);
             String result = null;
-            if (StringUtils.hasText(openApi)) {
-                JsonNode openApiNode = JsonUtil.readTree(openApi);
-                // schema
-                JsonNode schemaNode = openApiNode.at("/paths")
-                        .iterator().next().at("/post/requestBody/content")
-                        .iterator().next().at("/schema");
-                // components
-                JsonNode componentsNode = openApiNode.at("/components");
-                // 合并
-                HashMap hashMap = writeValueAsObject(schemaNode.toString(), HashMap.class);
-                hashMap.put("components", writeValueAsObject(componentsNode.toString(), Object.class));
-                // 检查
-                ProcessingReport processingMessages = JSON_VALIDATOR.validateUnchecked(JsonUtil.readTree(hashMap), resultNode);
+            if (null != schema) {
+                ProcessingReport processingMessages = schema.validateUnchecked(resultNode);
                 result = processingMessages.isSuccess() ? resultNode.toString() : null;
             } else {
                 result = "null".equals(resultNode.toString()) || "{}".equals(resultNode.toString()) ? null : resultNode.toString();
@@ -176,6 +340,34 @@ public class JsonUtil {
         return null;
     }
 
+    /**
+     * 编译OpenAPI协议中首个post请求体的schema，合并components以解析引用
+     *
+     * @param openApi   openApi
+     * @return          schema
+     */
+    public static JsonSchema compileRequestSchema(String openApi) {
+        JsonNode openApiNode = JsonUtil.readTree(openApi);
+        // schema
+        JsonNode schemaNode = openApiNode.at("/paths")
+                .iterator().next().at("/post/requestBody/content")
+                .iterator().next().at("/schema");
+        if (!schemaNode.isObject()) {
+            throw new IllegalStateException("the openapi protocol not have post request body schema. ");
+        }
+        // 合并components
+        ObjectNode requestSchemaNode = schemaNode.deepCopy();
+        JsonNode componentsNode = openApiNode.at("/components");
+        if (!componentsNode.isMissingNode()) {
+            requestSchemaNode.set("components", componentsNode.deepCopy());
+        }
+        try {
+            return JSON_SCHEMA_FACTORY.getJsonSchema(requestSchemaNode);
+        } catch (ProcessingException e) {
+            throw new IllegalStateException("the openapi request schema can not compile: " + e.getMessage(), e);
+        }
+    }
+
     public static Boolean hasPath(String json, String path) {
         JsonNode jsonNode = readTree(json);
         String[] paths = path.split("/");
@@ -190,13 +382,22 @@ public class JsonUtil {
     }
 
     public static Object readPath(String json, String path) {
+        return readPath(readTree(json), path);
+    }
+
+    public static Object readPath(JsonNode node, String path) {
+        return readPath(node, pointer(path));
+    }
+
+    public static Object readPath(JsonNode node, JsonPointer pointer) {
         try {
-            JsonNode jsonNode = readTree(json).at(path);
+            JsonNode jsonNode = node.at(pointer);
+            // 对象与数组直接由节点绑定，不再序列化后重新解析
             if (jsonNode instanceof ObjectNode) {
-                return writeValueAsObject(jsonNode.toString(), Object.class);
+                return OBJECT_MAPPER.treeToValue(jsonNode, Object.class);
             }
             if (jsonNode instanceof ArrayNode) {
-                return writeValueAsObject(jsonNode.toString(), List.class);
+                return OBJECT_MAPPER.treeToValue(jsonNode, List.class);
             }
             if (jsonNode instanceof TextNode) {
                 return jsonNode.textValue();
@@ -238,29 +439,39 @@ public class JsonUtil {
         }
     }
 
+    /**
+     * 替换节点，原文与值各解析一次，语义同JSON Patch的replace操作
+     *
+     * @param original  original
+     * @param path      path
+     * @param value     value json
+     * @return          result
+     */
     public static String patch(String original, String path, String value) {
-        String patchCommand = "[{ \"op\": \"replace\", \"path\": \"{{path}}\", \"value\": {{value}} }]";
-
-        try {
-            String pathReplaced = patchCommand.replace("{{path}}", path);
-            String valueReplaced = pathReplaced.replace("{{value}}", value);
-            JsonPatch patch = JsonPatch.fromJson(JsonUtil.readTree(valueReplaced));
-            return JsonUtil.writeValueAsStringRetainNull(patch.apply(JsonUtil.readTree(original)));
-        } catch (IOException | JsonPatchException e) {
-            throw new RuntimeException("patch fail... please check object...");
-        }
+        return writeValueAsStringRetainNull(patch(readTree(original), pointer(path), readTree(value)));
     }
 
+    /**
+     * 添加节点，原文与值各解析一次，语义同JSON Patch的add操作
+     *
+     * @param original  original
+     * @param path      path
+     * @param value     value json
+     * @return          result
+     */
     public static String add(String original, String path, String value) {
-        String patchCommand = "[{ \"op\": \"add\", \"path\": \"{{path}}\", \"value\": {{value}} }]";
-        try {
-            String pathReplaced = patchCommand.replace("{{path}}", path);
-            String valueReplaced = pathReplaced.replace("{{value}}", value);
-            JsonPatch patch = JsonPatch.fromJson(JsonUtil.readTree(valueReplaced));
-            return JsonUtil.writeValueAsStringRetainNull(patch.apply(JsonUtil.readTree(original)));
-        } catch (IOException | JsonPatchException e) {
-            throw new RuntimeException("patch fail... please check object...");
-        }
+        return writeValueAsStringRetainNull(add(readTree(original), pointer(path), readTree(value)));
+    }
+
+    /**
+     * 删除节点，语义同JSON Patch的remove操作
+     *
+     * @param original  original
+     * @param path      path
+     * @return          result
+     */
+    public static String remove(String original, String path) {
+        return writeValueAsStringRetainNull(remove(readTree(original), pointer(path)));
     }
 
     /**
@@ -271,15 +482,225 @@ public class JsonUtil {
      * @return              result
      */
     public static String supplementNotExistsNode(String json, String targetPath) {
-        String[] split = targetPath.split("/");
-        String p = "";
-        for (int i = 1; i < split.length; i++) {
-            p = p + "/" + split[i];
-            Object o = readPath(json, p);
-            if (null == o) {
-                json = add(json, p, "{}");
+        return writeValueAsStringRetainNull(supplementNotExistsNode(readTree(json), targetPath));
+    }
+
+    public static Cache<String, JsonPointer> pointers() {
+        return POINTERS;
+    }
+
+    /**
+     * 编译JSON Pointer，按路径缓存
+     *
+     * @param path  path
+     * @return      pointer
+     */
+    public static JsonPointer pointer(String path) {
+        return POINTERS.get(path, JsonPointer::compile);
+    }
+
+    /**
+     * 读取节点，路径不存在时为MissingNode
+     *
+     * @param node      node
+     * @param path      path
+     * @return          node
+     */
+    public static JsonNode readNode(JsonNode node, String path) {
+        return node.at(pointer(path));
+    }
+
+    /**
+     * 原地替换节点，语义同JSON Patch的replace操作，目标路径必须存在
+     *
+     * @param original  original
+     * @param path      path
+     * @param value     value
+     * @return          替换后的节点，根路径时为value本身
+     */
+    public static JsonNode patch(JsonNode original, String path, JsonNode value) {
+        return patch(original, pointer(path), value);
+    }
+
+    public static JsonNode patch(JsonNode original, JsonPointer pointer, JsonNode value) {
+        if (pointer.matches()) {
+            return value;
+        }
+        JsonNode parent = original.at(pointer.head());
+        JsonPointer last = pointer.last();
+        if (parent instanceof ObjectNode && parent.has(last.getMatchingProperty())) {
+            ((ObjectNode) parent).set(last.getMatchingProperty(), value);
+            return original;
+        }
+        if (parent instanceof ArrayNode && last.getMatchingIndex() >= 0 && last.getMatchingIndex() < parent.size()) {
+            ((ArrayNode) parent).set(last.getMatchingIndex(), value);
+            return original;
+        }
+        throw new RuntimeException("patch fail... please check object...");
+    }
+
+    /**
+     * 原地添加节点，语义同JSON Patch的add操作，父路径必须存在
+     *
+     * @param original  original
+     * @param path      path
+     * @param value     value
+     * @return          添加后的节点，根路径时为value本身
+     */
+    public static JsonNode add(JsonNode original, String path, JsonNode value) {
+        return add(original, pointer(path), value);
+    }
+
+    public static JsonNode add(JsonNode original, JsonPointer pointer, JsonNode value) {
+        if (pointer.matches()) {
+            return value;
+        }
+        JsonNode parent = original.at(pointer.head());
+        JsonPointer last = pointer.last();
+        if (parent instanceof ObjectNode) {
+            ((ObjectNode) parent).set(last.getMatchingProperty(), value);
+            return original;
+        }
+        if (parent instanceof ArrayNode) {
+            ArrayNode array = (ArrayNode) parent;
+            if ("-".equals(last.getMatchingProperty())) {
+                array.add(value);
+                return original;
+            }
+            if (last.getMatchingIndex() >= 0 && last.getMatchingIndex() <= array.size()) {
+                array.insert(last.getMatchingIndex(), value);
+                return original;
+            }
+        }
+        throw new RuntimeException("patch fail... please check object...");
+    }
+
+    /**
+     * 原地删除节点，语义同JSON Patch的remove操作，目标路径必须存在
+     *
+     * @param original  original
+     * @param path      path
+     * @return          删除后的节点
+     */
+    public static JsonNode remove(JsonNode original, String path) {
+        return remove(original, pointer(path));
+    }
+
+    public static JsonNode remove(JsonNode original, JsonPointer pointer) {
+        if (pointer.matches()) {
+            return MissingNode.getInstance();
+        }
+        JsonNode parent = original.at(pointer.head());
+        JsonPointer last = pointer.last();
+        if (parent instanceof ObjectNode && parent.has(last.getMatchingProperty())) {
+            ((ObjectNode) parent).remove(last.getMatchingProperty());
+            return original;
+        }
+        if (parent instanceof ArrayNode && last.getMatchingIndex() >= 0 && last.getMatchingIndex() < parent.size()) {
+            ((ArrayNode) parent).remove(last.getMatchingIndex());
+            return original;
+        }
+        throw new RuntimeException("patch fail... please check object...");
+    }
+
+    /**
+     * 原地补充目标节点中不存在的节点，按路径逐段下探，只遍历一次
+     * 数组以"-"追加只能作为最后一段，同JSON Patch的add不能以"-"作为父路径
+     *
+     * @param node          node
+     * @param targetPath    targetPath
+     * @return              result
+     */
+    public static JsonNode supplementNotExistsNode(JsonNode node, String targetPath) {
+        JsonPointer tail = pointer(targetPath);
+        JsonNode parent = node;
+        while (!tail.matches()) {
+            if (parent.isArray() && "-".equals(tail.getMatchingProperty()) && !tail.tail().matches()) {
+                throw new RuntimeException("patch fail... please check object...");
+            }
+            JsonNode child = parent.isArray() ? parent.get(tail.getMatchingIndex()) : parent.get(tail.getMatchingProperty());
+            if (null == child || child.isNull()) {
+                child = OBJECT_NULL_MAPPER.createObjectNode();
+                supplementChild(parent, tail, child);
+            }
+            parent = child;
+            tail = tail.tail();
+        }
+        return node;
+    }
+
+    private static void supplementChild(JsonNode parent, JsonPointer segment, JsonNode child) {
+        if (parent instanceof ObjectNode) {
+            ((ObjectNode) parent).set(segment.getMatchingProperty(), child);
+            return;
+        }
+        if (parent instanceof ArrayNode) {
+            ArrayNode array = (ArrayNode) parent;
+            if ("-".equals(segment.getMatchingProperty())) {
+                array.add(child);
+                return;
+            }
+            if (segment.getMatchingIndex() >= 0 && segment.getMatchingIndex() <= array.size()) {
+                array.insert(segment.getMatchingIndex(), child);
+                return;
+            }
+        }
+        throw new RuntimeException("patch fail... please check object...");
+    }
+
+    /**
+     * 数组元素迭代器，解析器位于数组内，每次取下一个元素时才读取并绑定
+     */
+    private static class ArrayElementIterator<T> implements Iterator<T> {
+
+        private final JsonParser parser;
+
+        private final ObjectReader reader;
+
+        private boolean fetched;
+
+        private boolean finished;
+
+        private T next;
+
+        private ArrayElementIterator(JsonParser parser, ObjectReader reader) {
+            this.parser = parser;
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (fetched) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            try {
+                JsonToken token = parser.nextToken();
+                if (null == token || JsonToken.END_ARRAY == token) {
+                    finished = true;
+                    parser.close();
+                    return false;
+                }
+                next = reader.readValue(parser);
+                fetched = true;
+                return true;
+            } catch (IOException e) {
+                finished = true;
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            T current = next;
+            next = null;
+            fetched = false;
+            return current;
         }
-        return json;
     }
-}
\ No newline at end of file
+}
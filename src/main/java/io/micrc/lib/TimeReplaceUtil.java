@@ -1,18 +1,24 @@
 package io.micrc.lib;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import java.time.Instant;
-import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * 时间替换工具
+ * 时间路径编译为按路径段组织的前缀树("#"匹配列表元素，"*"匹配对象的值)，一次遍历替换文档中的所有时间节点
  *
  * @author hyosunghan
  * @date 2022/10/21 11:29
@@ -20,9 +26,26 @@ import java.util.stream.Collectors;
  */
 public class TimeReplaceUtil {
 
-    private static DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSXXX");
+    private static final String LIST = "#";
+
+    private static final String MAP = "*";
+
+    private static final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSXXX")
+            .withZone(ZoneOffset.UTC);
 
-    private static DateTimeFormatter lowerDateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSXXX");
+    /**
+     * 解析时兼容0到9位的秒小数，不再按小数位数选择格式
+     */
+    private static final DateTimeFormatter parseDateTimeFormatter = new DateTimeFormatterBuilder()
+            .appendPattern("yyyy-MM-dd'T'HH:mm:ss")
+            .optionalStart().appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true).optionalEnd()
+            .appendPattern("XXX")
+            .toFormatter();
+
+    /**
+     * 未预先编译的时间路径按内容缓存，以路径内容为键
+     */
+    private static final Cache<String, TimePaths> MATCHERS = Caffeine.newBuilder().maximumSize(1024).build();
 
     /**
      * 匹配时间路径并替换时间
@@ -34,112 +57,203 @@ public class TimeReplaceUtil {
      * @return              result
      */
     public static String matchTimePathAndReplaceTime(List<String[]> timePathList, String path, String json, Class<?> timeClass) {
-        String[] split = path.split("/");
-        for (int i = 0; i < timePathList.size(); i++) {
-            List<String> other = matchGetOtherPath(split, timePathList.get(i));
-            json = replaceTime(json, other, timeClass);
-        }
-        return json;
+        return matchTimePathAndReplaceTime(cached(timePathList), path, json, timeClass);
     }
 
     /**
-     * 替换所有符合时间路径的节点
+     * 以已编译的时间路径匹配并替换时间
      *
-     * @param outMapping    outMapping
-     * @param other         other
+     * @param timePaths     已编译的时间路径
+     * @param path          path
+     * @param json          json
      * @param timeClass     timeClass
      * @return              result
      */
-    private static String replaceTime(String outMapping, List<String> other, Class<?> timeClass) {
-        if (null == other) {
-            return outMapping;
-        }
-        StringBuilder builder = new StringBuilder();
-        Iterator<String> iterator = other.iterator();
-        boolean isList = false;
-        boolean isMap = false;
-        while (iterator.hasNext()) {
-            String next = iterator.next();
-            iterator.remove();
-            isList = "#".equals(next);
-            isMap = "*".equals(next);
-            if (isList || isMap) {
-                break;
-            }
-            builder.append("/").append(next);
-        }
-        Object currentObject = JsonUtil.readPath(outMapping, builder.toString());
-        if (null == currentObject) {
-            return outMapping;
+    public static String matchTimePathAndReplaceTime(TimePaths timePaths, String path, String json, Class<?> timeClass) {
+        PathNode matched = timePaths.root.match(path.split("/"));
+        if (null == matched) {
+            return json;
         }
-        String current = JsonUtil.writeValueAsString(currentObject);
-        if (isList) {
-            List<Object> list = JsonUtil.writeValueAsList(current, Object.class);
-            list = list.stream().map(o -> {
-                if (!other.isEmpty()) {
-                    return JsonUtil.writeValueAsObject(replaceTime(JsonUtil.writeValueAsString(o), other, timeClass), Object.class);
-                }
-                return o;
-            }).collect(Collectors.toList());
-            return JsonUtil.patch(outMapping, builder.toString(), JsonUtil.writeValueAsString(list));
-        } else if (isMap) {
-            Map<String, Object> map = ClassCastUtils.castHashMap(JsonUtil.writeValueAsObject(current, Object.class), String.class, Object.class);
-            map.forEach((k, v) -> {
-                if (!other.isEmpty()) {
-                    map.put(k, JsonUtil.writeValueAsObject(replaceTime(JsonUtil.writeValueAsString(v), other, timeClass), Object.class));
-                }
-            });
-            return JsonUtil.patch(outMapping, builder.toString(), JsonUtil.writeValueAsString(map));
-        } else {
-            Object time = JsonUtil.readPath(outMapping, builder.toString());
-            String timeResult = null;
-            // 判断目标时间格式
-            if (timeClass.equals(String.class)) {
-                timeResult = JsonUtil.writeValueAsString(transTime2String(time));
-            } else {
-                timeResult = transTime2Long(time);
-            }
-            return JsonUtil.patch(outMapping, builder.toString(), timeResult);
+        JsonNode node = JsonUtil.readTree(json);
+        Replacement replacement = new Replacement(String.class.equals(timeClass));
+        JsonNode result = replacement.walk(matched, node);
+        return replacement.replaced ? JsonUtil.writeValueAsStringRetainNull(result) : json;
+    }
+
+    /**
+     * 匹配时间路径并原地替换节点中的时间
+     *
+     * @param timePathList  timePathList
+     * @param path          节点所在路径
+     * @param node          node
+     * @param timeClass     timeClass
+     * @return              替换后的节点，节点本身为时间时为新节点
+     */
+    public static JsonNode matchTimePathAndReplaceTime(List<String[]> timePathList, String path, JsonNode node, Class<?> timeClass) {
+        return matchTimePathAndReplaceTime(cached(timePathList), path, node, timeClass);
+    }
+
+    /**
+     * 以已编译的时间路径匹配并原地替换节点中的时间
+     *
+     * @param timePaths     已编译的时间路径
+     * @param path          节点所在路径
+     * @param node          node
+     * @param timeClass     timeClass
+     * @return              替换后的节点，节点本身为时间时为新节点
+     */
+    public static JsonNode matchTimePathAndReplaceTime(TimePaths timePaths, String path, JsonNode node, Class<?> timeClass) {
+        PathNode matched = timePaths.root.match(path.split("/"));
+        if (null == matched) {
+            return node;
         }
+        return new Replacement(String.class.equals(timeClass)).walk(matched, node);
     }
 
     /**
-     * 匹配路径并获取到剩余的内部路径
+     * 编译时间路径为前缀树，由调用方持有，启动时编译一次
      *
-     * @param path
-     * @param timePath
-     * @return
+     * @param timePathList  timePathList
+     * @return              已编译的时间路径
+     */
+    public static TimePaths compile(List<String[]> timePathList) {
+        PathNode root = new PathNode();
+        timePathList.forEach(root::add);
+        return new TimePaths(root);
+    }
+
+    /**
+     * 取得缓存的已编译时间路径，相同内容的路径只编译一次
      */
-    private static List<String> matchGetOtherPath(String[] path, String[] timePath) {
-        if (timePath.length < path.length) {
-            return null;
+    private static TimePaths cached(List<String[]> timePathList) {
+        String key = timePathList.stream().map(path -> String.join("/", path)).collect(Collectors.joining("\n"));
+        return MATCHERS.get(key, k -> compile(timePathList));
+    }
+
+    private static String transTime2String(JsonNode o) {
+        Instant instant = Instant.ofEpochMilli(Long.parseLong(o.asText()));
+        return dateTimeFormatter.format(instant);
+    }
+
+    private static long transTime2Long(JsonNode o) {
+        return ZonedDateTime.parse(o.asText(), parseDateTimeFormatter).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 已编译的时间路径，不可变，可在线程间共享
+     */
+    public static final class TimePaths {
+
+        private final PathNode root;
+
+        private TimePaths(PathNode root) {
+            this.root = root;
         }
-        for (int j = 0; j < path.length; j++) {
-            if (!timePath[j].equals(path[j])) {
-                return null;
+    }
+
+    /**
+     * 时间路径前缀树节点
+     */
+    private static class PathNode {
+
+        private final Map<String, PathNode> children = new LinkedHashMap<>();
+
+        /**
+         * 是否为某个时间路径的终点(时间节点)
+         */
+        private boolean time;
+
+        private void add(String[] timePath) {
+            PathNode current = this;
+            for (String segment : timePath) {
+                current = current.children.computeIfAbsent(segment, s -> new PathNode());
+            }
+            // 以通配结尾的路径不指向具体时间节点
+            String last = timePath.length == 0 ? null : timePath[timePath.length - 1];
+            if (null != last && !LIST.equals(last) && !MAP.equals(last)) {
+                current.time = true;
             }
         }
-        return new ArrayList<>(Arrays.asList(timePath).subList(path.length, timePath.length));
-    }
 
-    private static String transTime2String(Object o) {
-        if (null == o) {
-            return null;
+        /**
+         * 按节点所在路径逐段匹配，路径段按字面比较
+         *
+         * @param path  path segments
+         * @return      节点路径对应的子树，不匹配时为null
+         */
+        private PathNode match(String[] path) {
+            PathNode current = this;
+            for (String segment : path) {
+                current = current.children.get(segment);
+                if (null == current) {
+                    return null;
+                }
+            }
+            return current;
         }
-        Instant instant = Instant.ofEpochMilli(Long.parseLong(o.toString()));
-        ZonedDateTime zonedDateTime = ZonedDateTime.ofInstant(instant, ZoneId.of("UTC"));
-        return zonedDateTime.format(dateTimeFormatter);
     }
 
-    private static String transTime2Long(Object o) {
-        if (null == o) {
-            return null;
+    /**
+     * 一次替换过程，记录是否发生了替换
+     */
+    private static class Replacement {
+
+        private final boolean toString;
+
+        private boolean replaced;
+
+        private Replacement(boolean toString) {
+            this.toString = toString;
+        }
+
+        private JsonNode walk(PathNode pathNode, JsonNode node) {
+            if (null == node || node.isNull() || node.isMissingNode()) {
+                return node;
+            }
+            if (pathNode.time) {
+                replaced = true;
+                return toString
+                        ? JsonNodeFactory.instance.textNode(transTime2String(node))
+                        : JsonNodeFactory.instance.numberNode(transTime2Long(node));
+            }
+            for (Map.Entry<String, PathNode> entry : pathNode.children.entrySet()) {
+                String segment = entry.getKey();
+                PathNode child = entry.getValue();
+                if (LIST.equals(segment)) {
+                    if (node instanceof ArrayNode) {
+                        ArrayNode array = (ArrayNode) node;
+                        for (int i = 0; i < array.size(); i++) {
+                            array.set(i, walk(child, array.get(i)));
+                        }
+                    }
+                } else if (MAP.equals(segment)) {
+                    if (node instanceof ObjectNode) {
+                        ObjectNode object = (ObjectNode) node;
+                        List<String> fieldNames = new ArrayList<>();
+                        object.fieldNames().forEachRemaining(fieldNames::add);
+                        fieldNames.forEach(fieldName -> object.set(fieldName, walk(child, object.get(fieldName))));
+                    }
+                } else if (node instanceof ObjectNode) {
+                    JsonNode value = node.get(segment);
+                    if (null != value) {
+                        ((ObjectNode) node).set(segment, walk(child, value));
+                    }
+                } else if (node instanceof ArrayNode) {
+                    int index = index(segment);
+                    if (index >= 0 && index < node.size()) {
+                        ((ArrayNode) node).set(index, walk(child, node.get(index)));
+                    }
+                }
+            }
+            return node;
+        }
+
+        private static int index(String segment) {
+            try {
+                return Integer.parseInt(segment);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
         }
-        String milli = o.toString().split("\\.")[1].split("Z")[0].split("\\+")[0].split("-")[0];
-        // 毫秒位数大于5位用SSSSSS匹配，否则为4位用SSSSS匹配
-        DateTimeFormatter formatter = milli.length() >= 5 ? dateTimeFormatter : lowerDateTimeFormatter;
-        ZonedDateTime zonedDateTime = ZonedDateTime.parse(o.toString(), formatter);
-        Instant instant = zonedDateTime.toInstant();
-        return String.valueOf(instant.toEpochMilli());
     }
 }
@@ -0,0 +1,48 @@
+package io.micrc.core._camel.jit;
+
+import io.micrc.lib.FileUtils;
+import io.micrc.lib.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 进程内决策服务执行与决策服务REST接口结果的一致性
+ */
+class JITDMNServiceTest {
+
+    private static final String MODEL = "dmn/logic-test.dmn";
+
+    private static final String CONTEXT = "{\"amount\":10,\"start\":\"2024-01-31\"}";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void localDecisionServiceMatchesRestResponse() {
+        JITDMNService jitdmnService = new JITDMNService(16);
+        Map<String, Object> context = JsonUtil.writeValueAsObjectRetainNull(CONTEXT, Map.class);
+
+        HashMap<String, Object> local = jitdmnService.evaluateDecisionService(MODEL, "logic", context);
+        // REST方式下逻辑路由以json解码决策服务响应体得到HashMap
+        HashMap<String, Object> rest = JsonUtil.writeValueAsObject(
+                FileUtils.fileReader("dmn/logic-test-response.json", List.of("json")), HashMap.class);
+
+        assertEquals(rest, local);
+        assertFalse(local.containsKey("amount"));
+        assertFalse(local.containsKey("start"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unknownDecisionServiceFails() {
+        JITDMNService jitdmnService = new JITDMNService(16);
+        Map<String, Object> context = JsonUtil.writeValueAsObjectRetainNull(CONTEXT, Map.class);
+
+        assertThrows(RuntimeException.class, () -> jitdmnService.evaluateDecisionService(MODEL, "missing", context));
+    }
+}
@@ -0,0 +1,109 @@
+package io.micrc.core.application.businesses;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.micrc.lib.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 命令字符串模式与树模式的一致性，两种模式按业务服务各阶段的相同操作执行后命令json一致
+ */
+class CommandNodeTest {
+
+    private static final String COMMAND = "{\"source\":{\"identity\":{\"id\":1},\"version\":2,\"name\":\"a\","
+            + "\"items\":[{\"code\":\"x\"}]},\"target\":null,\"event\":{\"eventName\":\"Created\"},"
+            + "\"batch\":[{\"code\":\"b1\"},{\"code\":\"b2\"}],\"remark\":null}";
+
+    @Test
+    void treeAndStringModeProduceSameCommand() {
+        Map<String, Object> stringProperties = properties(false);
+        Map<String, Object> treeProperties = properties(true);
+
+        List<String> stringSnapshots = executeStages(stringProperties);
+        List<String> treeSnapshots = executeStages(treeProperties);
+
+        assertEquals(stringSnapshots, treeSnapshots);
+        assertEquals(CommandNode.toObject(stringProperties, Map.class), CommandNode.toObject(treeProperties, Map.class));
+    }
+
+    @Test
+    void copySourceKeepsNullValues() {
+        Map<String, Object> properties = properties(false);
+        String json = executeStages(properties).get(0);
+
+        JsonNode command = JsonUtil.readTree(json);
+        assertEquals(command.at("/source"), command.at("/target"));
+        assertEquals(NullNode.getInstance(), command.get("remark"));
+    }
+
+    @Test
+    void jsonWithLeavesCommandUnchanged() {
+        for (boolean tree : new boolean[]{false, true}) {
+            Map<String, Object> properties = properties(tree);
+
+            String added = CommandNode.jsonWith(properties, "/event/eventBatchData", TextNode.valueOf("b1"));
+            String replaced = CommandNode.jsonWith(properties, "/event/eventName", TextNode.valueOf("Changed"));
+
+            assertEquals("b1", JsonUtil.readPath(added, "/event/eventBatchData"));
+            assertEquals("Changed", JsonUtil.readPath(replaced, "/event/eventName"));
+            assertEquals(JsonUtil.readTree(COMMAND), JsonUtil.readTree(CommandNode.json(properties)));
+        }
+    }
+
+    private static Map<String, Object> properties(boolean tree) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CommandNode.COMMAND_TREE, String.valueOf(tree));
+        if (tree) {
+            properties.put(CommandNode.COMMAND_NODE, JsonUtil.readTree(COMMAND));
+        } else {
+            properties.put(CommandNode.COMMAND_JSON, COMMAND);
+        }
+        return properties;
+    }
+
+    /**
+     * 按copy-source、save-entity、逻辑结果回写、事件批量存储、批次拆分的顺序修改命令，记录每个阶段后的命令json
+     */
+    private static List<String> executeStages(Map<String, Object> properties) {
+        List<String> snapshots = new ArrayList<>();
+        // copy-source
+        ObjectNode commandNode = CommandNode.read(properties);
+        JsonUtil.patch(commandNode, "/target", commandNode.at("/source").deepCopy());
+        CommandNode.write(properties, commandNode);
+        snapshots.add(CommandNode.json(properties));
+        // save-entity
+        commandNode = CommandNode.read(properties);
+        JsonNode target = commandNode.at("/target");
+        JsonUtil.add(target, "/identity/code", TextNode.valueOf("c"));
+        JsonUtil.patch(target, "/version", commandNode.at("/source/version"));
+        JsonUtil.patch(target, "/items", NullNode.getInstance());
+        CommandNode.write(properties, commandNode);
+        snapshots.add(CommandNode.json(properties));
+        // 逻辑结果回写
+        commandNode = CommandNode.read(properties);
+        JsonUtil.supplementNotExistsNode(commandNode, "/target/state/angle");
+        JsonUtil.patch(commandNode, "/target/state/angle", TextNode.valueOf("DONE"));
+        CommandNode.write(properties, commandNode);
+        snapshots.add(CommandNode.json(properties));
+        // 事件批量存储
+        for (JsonNode item : JsonUtil.readTree(CommandNode.json(properties)).at("/batch")) {
+            snapshots.add(CommandNode.jsonWith(properties, "/event/eventBatchData", item));
+        }
+        snapshots.add(CommandNode.json(properties));
+        // 批次拆分
+        ObjectNode itemNode = CommandNode.readCopy(properties);
+        JsonUtil.patch(itemNode, "/batch", JsonUtil.readTree("[{\"code\":\"b3\"}]"));
+        snapshots.add(JsonUtil.writeValueAsStringRetainNull(itemNode));
+        snapshots.add(CommandNode.json(properties));
+        return snapshots;
+    }
+}
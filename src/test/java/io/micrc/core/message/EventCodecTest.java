@@ -0,0 +1,122 @@
+package io.micrc.core.message;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrc.lib.JsonUtil;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 事件消息编码的往返、跨编码一致性，二进制编码的映射内容树，以及没有codec头的旧版本JSON消息的解码
+ */
+class EventCodecTest {
+
+    private static final String MAPPING_MAP = "{\"OrderCreateService\":{\"mappingKey\":\"OrderCreateService\","
+            + "\"mappingPath\":\"{\\\"order\\\":{\\\"id\\\":1,\\\"name\\\":\\\"订单\\\"}}\",\"receiverAddress\":\"order\","
+            + "\"batchModel\":false},\"StockReduceService\":{\"mappingKey\":\"StockReduceService\","
+            + "\"mappingPath\":\"{\\\"items\\\":[{\\\"sku\\\":\\\"a\\\",\\\"count\\\":2}]}\",\"receiverAddress\":\"stock\","
+            + "\"count\":3000000000,\"rate\":1.5,\"tags\":[\"x\",\"y\"]}}";
+
+    private static final String STOCK_CONTENT = "{\"items\":[{\"sku\":\"a\",\"count\":2,\"remark\":null}],\"rate\":1.5}";
+
+    @Test
+    void eachCodecRoundTrips() {
+        Map<String, Object> mappingMap = mappingMap();
+        JsonNode expected = JsonUtil.readTree(MAPPING_MAP);
+        for (EventCodec codec : EventCodec.values()) {
+            JsonNode decoded = codec.decode(codec.encode(mappingMap));
+
+            assertEquals(expected, decoded, codec.codecName());
+            assertEquals(mappingMap, JsonUtil.writeTreeAsObject(decoded, HashMap.class), codec.codecName());
+        }
+    }
+
+    @Test
+    void codecsDecodeToSameTree() {
+        Map<String, Object> mappingMap = mappingMap();
+        JsonNode json = EventCodec.JSON.decode(EventCodec.JSON.encode(mappingMap));
+        for (EventCodec codec : List.of(EventCodec.CBOR, EventCodec.SMILE)) {
+            assertEquals(json, codec.decode(codec.encode(mappingMap)), codec.codecName());
+        }
+        // JSON编码为普通JSON文本，旧版本接收方可以直接读取
+        String text = new String(EventCodec.JSON.encode(mappingMap), StandardCharsets.UTF_8);
+        assertEquals(JsonUtil.readTree(MAPPING_MAP), JsonUtil.readTree(text));
+    }
+
+    @Test
+    void codecOfName() {
+        assertEquals(EventCodec.JSON, EventCodec.of(null));
+        assertEquals(EventCodec.JSON, EventCodec.of(""));
+        assertEquals(EventCodec.CBOR, EventCodec.of("CBOR"));
+        assertEquals(EventCodec.SMILE, EventCodec.of("smile"));
+        assertThrows(IllegalStateException.class, () -> EventCodec.of("avro"));
+    }
+
+    @Test
+    void legacyRecordWithoutHeadersDecodesAsJson() {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>("order", 0, 0L, null, MAPPING_MAP);
+
+        Map<String, JsonNode> decoded = MessageRouteConfiguration.decodeMappingMap(record, new HashMap<>());
+
+        JsonNode expected = JsonUtil.readTree(MAPPING_MAP);
+        assertEquals(List.of("OrderCreateService", "StockReduceService"), List.copyOf(decoded.keySet()));
+        assertEquals(expected.get("OrderCreateService"), decoded.get("OrderCreateService"));
+        assertEquals("{\"order\":{\"id\":1,\"name\":\"订单\"}}",
+                MessageRouteConfiguration.mappingContent(decoded.get("OrderCreateService"), new HashMap<>()));
+        assertEquals(mappingMap().get("StockReduceService"),
+                MessageRouteConfiguration.textMapping(decoded.get("StockReduceService"), new HashMap<>()));
+    }
+
+    @Test
+    void receiverRecordDecodesOnlyItsMapping() {
+        MessageRouteConfiguration.EventsInfo.EventMapping eventMapping = MessageRouteConfiguration.EventsInfo.EventMapping.builder()
+                .mappingKey("StockReduceService").receiverAddress("stock").batchModel("items").build();
+        JsonNode content = JsonUtil.readTree(STOCK_CONTENT);
+        for (EventCodec codec : EventCodec.values()) {
+            ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("order", 0, 0L, null,
+                    codec.encode(MessageRouteConfiguration.mappingPayload(codec, eventMapping, content)));
+            Map<String, String> headers = new HashMap<>();
+            headers.put(EventCodec.CODEC_HEADER, codec.codecName());
+            headers.put(EventCodec.RECEIVER_HEADER, "StockReduceService");
+
+            Map<String, JsonNode> decoded = MessageRouteConfiguration.decodeMappingMap(record, headers);
+
+            assertEquals(List.of("StockReduceService"), List.copyOf(decoded.keySet()), codec.codecName());
+            JsonNode mapping = decoded.get("StockReduceService");
+            // 二进制编码的映射内容为树，JSON编码的映射内容为文本
+            assertEquals(EventCodec.JSON != codec, mapping.get("mappingPath").isObject(), codec.codecName());
+            assertEquals(content, JsonUtil.readTree(MessageRouteConfiguration.mappingContent(mapping, headers)), codec.codecName());
+            Map<String, Object> textMapping = MessageRouteConfiguration.textMapping(mapping, headers);
+            assertEquals("stock", textMapping.get("receiverAddress"), codec.codecName());
+            assertEquals("items", textMapping.get("batchModel"), codec.codecName());
+        }
+    }
+
+    @Test
+    void jsonPayloadKeepsTextMapping() {
+        MessageRouteConfiguration.EventsInfo.EventMapping eventMapping = MessageRouteConfiguration.EventsInfo.EventMapping.builder()
+                .mappingKey("StockReduceService").receiverAddress("stock").build();
+        MessageRouteConfiguration.EventsInfo.EventMapping legacy = MessageRouteConfiguration.EventsInfo.EventMapping.builder()
+                .mappingKey("StockReduceService").mappingPath(STOCK_CONTENT).receiverAddress("stock").build();
+
+        byte[] payload = EventCodec.JSON.encode(
+                MessageRouteConfiguration.mappingPayload(EventCodec.JSON, eventMapping, JsonUtil.readTree(STOCK_CONTENT)));
+
+        // 旧版本接收方按文本读取映射内容
+        assertArrayEquals(EventCodec.JSON.encode(legacy), payload);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> mappingMap() {
+        return JsonUtil.writeValueAsObject(MAPPING_MAP, LinkedHashMap.class);
+    }
+}
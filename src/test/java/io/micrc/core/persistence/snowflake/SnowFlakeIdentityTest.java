@@ -0,0 +1,124 @@
+package io.micrc.core.persistence.snowflake;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 雪花ID的并发唯一性、单调性与时钟回拨处理
+ */
+class SnowFlakeIdentityTest {
+
+    private static final long BASE_TIME = Instant.parse("2024-01-01T00:00:00.000Z").toEpochMilli();
+
+    private static int originMachineNumber;
+
+    @BeforeAll
+    static void allotMachineNumber() {
+        originMachineNumber = SnowFlakeIdentity.machineNumber;
+        SnowFlakeIdentity.machineNumber = 1;
+    }
+
+    @AfterAll
+    static void restoreMachineNumber() {
+        SnowFlakeIdentity.machineNumber = originMachineNumber;
+    }
+
+    @Test
+    void uniqueAndIncreasingUnderContention() throws Exception {
+        SnowFlakeIdentity identity = new SnowFlakeIdentity(System::currentTimeMillis);
+        int threads = 8;
+        int perThread = 20000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                // 一半线程逐个获取，一半线程批量获取
+                boolean batch = t % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long last = Long.MIN_VALUE;
+                    boolean increasing = true;
+                    int generated = 0;
+                    while (generated < perThread) {
+                        long[] next = batch
+                                ? identity.nextIds(Math.min(100, perThread - generated))
+                                : new long[]{identity.nextId()};
+                        for (long id : next) {
+                            increasing &= id > last;
+                            last = id;
+                            ids.add(id);
+                        }
+                        generated += next.length;
+                    }
+                    return increasing;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    void nextIdsSpanMilliseconds() {
+        SnowFlakeIdentity identity = new SnowFlakeIdentity(System::currentTimeMillis);
+
+        long[] ids = identity.nextIds(2000);
+
+        assertEquals(2000, ids.length);
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+    }
+
+    @Test
+    void clockRollbackWithinToleranceKeepsIncreasing() {
+        // 每次读取时钟前进1毫秒
+        AtomicLong time = new AtomicLong(BASE_TIME);
+        SnowFlakeIdentity identity = new SnowFlakeIdentity(time::getAndIncrement);
+        long last = identity.nextId();
+
+        time.addAndGet(-1000);
+
+        // 回拨期间沿用上次时间戳，序列号耗尽后等待时钟追上
+        for (int i = 0; i < 2000; i++) {
+            long id = identity.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+    }
+
+    @Test
+    void clockRollbackBeyondToleranceRefuses() {
+        AtomicLong time = new AtomicLong(BASE_TIME);
+        SnowFlakeIdentity identity = new SnowFlakeIdentity(time::get);
+        long first = identity.nextId();
+
+        time.addAndGet(-10000);
+
+        // 沿用上次时间戳的序列号仍可分配，耗尽后拒绝生成
+        long second = identity.nextId();
+        assertTrue(second > first);
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 512; i++) {
+                identity.nextId();
+            }
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package io.micrc.lib;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 树上的JSON Pointer操作与原JSON Patch实现的一致性，原实现逐项保留在测试中作为对照
+ */
+class JsonUtilTest {
+
+    private static final String JSON = "{\"name\":\"a\",\"remark\":null,\"count\":1,"
+            + "\"items\":[{\"code\":\"x\"},{\"code\":\"y\"}],\"state\":{\"status\":\"NEW\"}}";
+
+    @Test
+    void patchMatchesJsonPatchReplace() {
+        assertSame(() -> legacy("replace", JSON, "/name", "\"b\""), () -> JsonUtil.patch(JSON, "/name", "\"b\""));
+        assertSame(() -> legacy("replace", JSON, "/remark", "{\"a\":1}"), () -> JsonUtil.patch(JSON, "/remark", "{\"a\":1}"));
+        assertSame(() -> legacy("replace", JSON, "/state/status", "null"), () -> JsonUtil.patch(JSON, "/state/status", "null"));
+        assertSame(() -> legacy("replace", JSON, "/items/1", "{\"code\":\"z\"}"), () -> JsonUtil.patch(JSON, "/items/1", "{\"code\":\"z\"}"));
+        assertSame(() -> legacy("replace", JSON, "/items/0/code", "\"z\""), () -> JsonUtil.patch(JSON, "/items/0/code", "\"z\""));
+        assertSame(() -> legacy("replace", JSON, "", "{\"b\":2}"), () -> JsonUtil.patch(JSON, "", "{\"b\":2}"));
+        // 目标不存在
+        assertBothFail(() -> legacy("replace", JSON, "/missing", "1"), () -> JsonUtil.patch(JSON, "/missing", "1"));
+        assertBothFail(() -> legacy("replace", JSON, "/items/2", "1"), () -> JsonUtil.patch(JSON, "/items/2", "1"));
+        assertBothFail(() -> legacy("replace", JSON, "/items/-", "1"), () -> JsonUtil.patch(JSON, "/items/-", "1"));
+        assertBothFail(() -> legacy("replace", JSON, "/none/name", "1"), () -> JsonUtil.patch(JSON, "/none/name", "1"));
+    }
+
+    @Test
+    void addMatchesJsonPatchAdd() {
+        assertSame(() -> legacy("add", JSON, "/extra", "[1,2]"), () -> JsonUtil.add(JSON, "/extra", "[1,2]"));
+        assertSame(() -> legacy("add", JSON, "/name", "\"b\""), () -> JsonUtil.add(JSON, "/name", "\"b\""));
+        assertSame(() -> legacy("add", JSON, "/state/angle", "\"DONE\""), () -> JsonUtil.add(JSON, "/state/angle", "\"DONE\""));
+        // 数组按序号插入，序号等于长度时追加，"-"追加
+        assertSame(() -> legacy("add", JSON, "/items/0", "{\"code\":\"w\"}"), () -> JsonUtil.add(JSON, "/items/0", "{\"code\":\"w\"}"));
+        assertSame(() -> legacy("add", JSON, "/items/2", "{\"code\":\"w\"}"), () -> JsonUtil.add(JSON, "/items/2", "{\"code\":\"w\"}"));
+        assertSame(() -> legacy("add", JSON, "/items/-", "{\"code\":\"w\"}"), () -> JsonUtil.add(JSON, "/items/-", "{\"code\":\"w\"}"));
+        assertSame(() -> legacy("add", JSON, "", "{\"b\":2}"), () -> JsonUtil.add(JSON, "", "{\"b\":2}"));
+        // 父路径不存在或不是容器
+        assertBothFail(() -> legacy("add", JSON, "/items/3", "1"), () -> JsonUtil.add(JSON, "/items/3", "1"));
+        assertBothFail(() -> legacy("add", JSON, "/none/name", "1"), () -> JsonUtil.add(JSON, "/none/name", "1"));
+        assertBothFail(() -> legacy("add", JSON, "/remark/name", "1"), () -> JsonUtil.add(JSON, "/remark/name", "1"));
+        assertBothFail(() -> legacy("add", JSON, "/count/name", "1"), () -> JsonUtil.add(JSON, "/count/name", "1"));
+    }
+
+    @Test
+    void removeMatchesJsonPatchRemove() {
+        assertSame(() -> legacy("remove", JSON, "/name", null), () -> JsonUtil.remove(JSON, "/name"));
+        assertSame(() -> legacy("remove", JSON, "/remark", null), () -> JsonUtil.remove(JSON, "/remark"));
+        assertSame(() -> legacy("remove", JSON, "/items/0", null), () -> JsonUtil.remove(JSON, "/items/0"));
+        assertSame(() -> legacy("remove", JSON, "/state/status", null), () -> JsonUtil.remove(JSON, "/state/status"));
+        assertBothFail(() -> legacy("remove", JSON, "/missing", null), () -> JsonUtil.remove(JSON, "/missing"));
+        assertBothFail(() -> legacy("remove", JSON, "/items/2", null), () -> JsonUtil.remove(JSON, "/items/2"));
+        assertBothFail(() -> legacy("remove", JSON, "/items/-", null), () -> JsonUtil.remove(JSON, "/items/-"));
+    }
+
+    @Test
+    void supplementMatchesLegacy() {
+        for (String path : new String[]{"/name", "/remark", "/remark/a/b", "/none", "/none/a/b", "/state/status",
+                "/state/angle/value", "/items/0/code", "/items/1/detail/value", "/items/2", "/items/2/detail", "/items/-"}) {
+            assertSame(() -> legacySupplement(JSON, path), () -> JsonUtil.supplementNotExistsNode(JSON, path));
+            assertSame(() -> legacySupplement(JSON, path),
+                    () -> JsonUtil.writeValueAsStringRetainNull(JsonUtil.supplementNotExistsNode(JsonUtil.readTree(JSON), path)));
+        }
+        for (String path : new String[]{"/items/3/detail", "/items/-/detail", "/count/value", "/name/value"}) {
+            assertBothFail(() -> legacySupplement(JSON, path), () -> JsonUtil.supplementNotExistsNode(JSON, path));
+        }
+    }
+
+    @Test
+    void treeOperationsMatchStringOperations() {
+        JsonNode node = JsonUtil.readTree(JSON);
+        JsonUtil.patch(node, "/items/0/code", JsonUtil.readTree("\"z\""));
+        JsonUtil.add(node, "/items/-", JsonUtil.readTree("{\"code\":\"w\"}"));
+        JsonUtil.remove(node, "/remark");
+        JsonUtil.supplementNotExistsNode(node, "/state/angle/value");
+
+        String json = JsonUtil.patch(JSON, "/items/0/code", "\"z\"");
+        json = JsonUtil.add(json, "/items/-", "{\"code\":\"w\"}");
+        json = JsonUtil.remove(json, "/remark");
+        json = JsonUtil.supplementNotExistsNode(json, "/state/angle/value");
+
+        assertEquals(JsonUtil.readTree(json), node);
+    }
+
+    private static void assertSame(Supplier<String> legacy, Supplier<String> current) {
+        assertEquals(JsonUtil.readTree(legacy.get()), JsonUtil.readTree(current.get()));
+    }
+
+    private static void assertBothFail(Supplier<String> legacy, Supplier<String> current) {
+        assertThrows(RuntimeException.class, legacy::get);
+        assertThrows(RuntimeException.class, current::get);
+    }
+
+    /**
+     * 原实现：拼装单个操作的JSON Patch并应用
+     */
+    private static String legacy(String op, String original, String path, String value) {
+        String patchCommand = null == value
+                ? "[{ \"op\": \"" + op + "\", \"path\": \"" + path + "\" }]"
+                : "[{ \"op\": \"" + op + "\", \"path\": \"" + path + "\", \"value\": " + value + " }]";
+        try {
+            JsonPatch patch = JsonPatch.fromJson(JsonUtil.readTree(patchCommand));
+            return JsonUtil.writeValueAsStringRetainNull(patch.apply(JsonUtil.readTree(original)));
+        } catch (IOException | JsonPatchException e) {
+            throw new RuntimeException("patch fail... please check object...");
+        }
+    }
+
+    /**
+     * 原实现：逐级前缀读取，不存在或为null时以add补充空对象
+     */
+    private static String legacySupplement(String json, String targetPath) {
+        String[] split = targetPath.split("/");
+        String p = "";
+        for (int i = 1; i < split.length; i++) {
+            p = p + "/" + split[i];
+            Object o = JsonUtil.readPath(json, p);
+            if (null == o) {
+                json = legacy("add", json, p, "{}");
+            }
+        }
+        return json;
+    }
+}
@@ -0,0 +1,88 @@
+package io.micrc.lib;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.LongNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 时间路径匹配与替换，覆盖列表与对象通配、嵌套列表、路径缺失以及字符串与树两种入口
+ */
+class TimeReplaceUtilTest {
+
+    private static final List<String[]> TIME_PATHS = List.of(
+            "/order/createTime".split("/"),
+            "/order/items/#/createTime".split("/"),
+            "/order/groups/#/#/time".split("/"),
+            "/order/prices/*/time".split("/"),
+            "/order/missing/time".split("/"));
+
+    private static final String ORDER = "{\"order\":{\"createTime\":1720764300000,\"name\":\"o\","
+            + "\"items\":[{\"createTime\":0},{\"createTime\":86400000},{\"code\":\"x\"}],"
+            + "\"groups\":[[{\"time\":0}],[{\"time\":1000},{\"time\":null}]],"
+            + "\"prices\":{\"cny\":{\"time\":0},\"usd\":{\"time\":1000,\"value\":1}}}}";
+
+    private static final String FORMATTED = "{\"order\":{\"createTime\":\"2024-07-12T06:05:00.000000Z\",\"name\":\"o\","
+            + "\"items\":[{\"createTime\":\"1970-01-01T00:00:00.000000Z\"},{\"createTime\":\"1970-01-02T00:00:00.000000Z\"},{\"code\":\"x\"}],"
+            + "\"groups\":[[{\"time\":\"1970-01-01T00:00:00.000000Z\"}],[{\"time\":\"1970-01-01T00:00:01.000000Z\"},{\"time\":null}]],"
+            + "\"prices\":{\"cny\":{\"time\":\"1970-01-01T00:00:00.000000Z\"},\"usd\":{\"time\":\"1970-01-01T00:00:01.000000Z\",\"value\":1}}}}";
+
+    @Test
+    void replaceWildcardAndNestedListTimes() {
+        String formatted = TimeReplaceUtil.matchTimePathAndReplaceTime(TIME_PATHS, "", ORDER, String.class);
+
+        assertEquals(JsonUtil.readTree(FORMATTED), JsonUtil.readTree(formatted));
+        assertEquals(JsonUtil.readTree(ORDER),
+                JsonUtil.readTree(TimeReplaceUtil.matchTimePathAndReplaceTime(TIME_PATHS, "", formatted, Long.class)));
+    }
+
+    @Test
+    void missingPathsLeaveJsonUnchanged() {
+        String json = "{\"order\":{\"name\":\"o\",\"items\":[]}}";
+
+        assertSame(json, TimeReplaceUtil.matchTimePathAndReplaceTime(TIME_PATHS, "", json, String.class));
+        assertSame(json, TimeReplaceUtil.matchTimePathAndReplaceTime(TIME_PATHS, "/other", json, String.class));
+        assertSame(ORDER, TimeReplaceUtil.matchTimePathAndReplaceTime(TIME_PATHS, "/order/name", ORDER, String.class));
+    }
+
+    @Test
+    void nodePathMatchesSubtree() {
+        JsonNode order = JsonUtil.readTree(ORDER).get("order");
+
+        JsonNode formatted = TimeReplaceUtil.matchTimePathAndReplaceTime(TIME_PATHS, "/order", order, String.class);
+        JsonNode time = TimeReplaceUtil.matchTimePathAndReplaceTime(TIME_PATHS, "/order/createTime",
+                LongNode.valueOf(0L), String.class);
+
+        assertEquals(JsonUtil.readTree(FORMATTED).get("order"), formatted);
+        assertEquals("1970-01-01T00:00:00.000000Z", time.textValue());
+    }
+
+    @Test
+    void parseTimesWithAnyFraction() {
+        List<String[]> timePaths = List.<String[]>of("/times/#/time".split("/"));
+        String json = "{\"times\":[{\"time\":\"1970-01-01T00:00:00Z\"},{\"time\":\"1970-01-01T08:00:00.5+08:00\"},"
+                + "{\"time\":\"1970-01-01T00:00:01.123456789Z\"}]}";
+
+        String replaced = TimeReplaceUtil.matchTimePathAndReplaceTime(timePaths, "", json, Long.class);
+
+        assertEquals(JsonUtil.readTree("{\"times\":[{\"time\":0},{\"time\":500},{\"time\":1123}]}"), JsonUtil.readTree(replaced));
+    }
+
+    @Test
+    void stringTreeAndCompiledEntriesAgree() {
+        TimeReplaceUtil.TimePaths timePaths = TimeReplaceUtil.compile(TIME_PATHS);
+
+        String byList = TimeReplaceUtil.matchTimePathAndReplaceTime(TIME_PATHS, "", ORDER, String.class);
+        String byCompiled = TimeReplaceUtil.matchTimePathAndReplaceTime(timePaths, "", ORDER, String.class);
+        JsonNode byTree = TimeReplaceUtil.matchTimePathAndReplaceTime(TIME_PATHS, "", JsonUtil.readTree(ORDER), String.class);
+        JsonNode byCompiledTree = TimeReplaceUtil.matchTimePathAndReplaceTime(timePaths, "", JsonUtil.readTree(ORDER), String.class);
+
+        assertEquals(JsonUtil.readTree(byList), JsonUtil.readTree(byCompiled));
+        assertEquals(JsonUtil.readTree(byList), byTree);
+        assertEquals(byTree, byCompiledTree);
+    }
+}